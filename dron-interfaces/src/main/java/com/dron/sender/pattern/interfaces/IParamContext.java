@@ -0,0 +1,13 @@
+package com.dron.sender.pattern.interfaces;
+
+/**
+ * Params of one sequence run. Values extracted from responses are put here
+ * instead of shared objects, so runs don't see each other's params.
+ */
+public interface IParamContext {
+
+	/**
+	 * Adds the param or updates its value if the key is already present
+	 */
+	void putParam(String key, String value);
+}
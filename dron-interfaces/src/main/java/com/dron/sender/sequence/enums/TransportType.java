@@ -0,0 +1,20 @@
+package com.dron.sender.sequence.enums;
+
+/**
+ * HTTP client a run sends its requests with.
+ * 
+ * @author Koropatva
+ *
+ */
+public enum TransportType {
+	// Apache HttpClient pools, NIO client for async requests
+	HTTP_COMPONENTS,
+	// JDK HttpURLConnection, async requests are run on a thread pool
+	URL_CONNECTION,
+	// Apache NIO client for all requests, blocking ones wait for the reactor
+	NIO,
+	// OkHttp with HTTP/2, h2c for "http" urls and h2 by ALPN for "https"
+	HTTP2,
+	// JDK java.net.http client, supported on Java 11+ only
+	JDK_HTTP_CLIENT;
+}
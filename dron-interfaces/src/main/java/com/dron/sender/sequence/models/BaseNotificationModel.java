@@ -23,4 +23,8 @@ public abstract class BaseNotificationModel implements IBaseObserver {
 		listeners.add(newListener);
 	}
 
+	public void removeChangeListener(PropertyChangeListener listener) {
+		listeners.remove(listener);
+	}
+
 }
@@ -0,0 +1,109 @@
+package com.dron.sender.sequence.models;
+
+import java.beans.PropertyChangeListener;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+
+/**
+ * List of params in insertion order with an index by key. The first param
+ * with a key is found, like the linear search did before. Index is kept
+ * up to date on append, other changes and changes of param keys rebuild it on
+ * the next search. Not thread-safe, like ArrayList.
+ * 
+ * @author Koropatva
+ *
+ */
+public class ParamList extends AbstractList<Param> implements RandomAccess {
+
+	private final List<Param> params;
+
+	private final Map<String, Param> index;
+
+	private boolean indexValid = true;
+
+	private final PropertyChangeListener keyListener = event -> {
+		if (Param.PROPERTY_KEY.equals(event.getPropertyName())) {
+			indexValid = false;
+		}
+	};
+
+	public ParamList() {
+		params = new ArrayList<Param>();
+		index = new HashMap<String, Param>();
+	}
+
+	public ParamList(Collection<Param> params) {
+		this.params = new ArrayList<Param>(params.size());
+		this.index = new HashMap<String, Param>(params.size() * 2);
+		addAll(params);
+	}
+
+	/**
+	 * @return the first param with the key or null
+	 */
+	public Param find(String key) {
+		if (!indexValid) {
+			index.clear();
+			for (Param param : params) {
+				index.putIfAbsent(param.getKey(), param);
+			}
+			indexValid = true;
+		}
+		return index.get(key);
+	}
+
+	@Override
+	public Param get(int position) {
+		return params.get(position);
+	}
+
+	@Override
+	public int size() {
+		return params.size();
+	}
+
+	@Override
+	public void add(int position, Param param) {
+		params.add(position, param);
+		param.addChangeListener(keyListener);
+		if (indexValid && position == params.size() - 1) {
+			index.putIfAbsent(param.getKey(), param);
+		} else {
+			indexValid = false;
+		}
+		modCount++;
+	}
+
+	@Override
+	public Param set(int position, Param param) {
+		Param previous = params.set(position, param);
+		previous.removeChangeListener(keyListener);
+		param.addChangeListener(keyListener);
+		indexValid = false;
+		return previous;
+	}
+
+	@Override
+	public Param remove(int position) {
+		Param previous = params.remove(position);
+		previous.removeChangeListener(keyListener);
+		indexValid = false;
+		modCount++;
+		return previous;
+	}
+
+	@Override
+	public void clear() {
+		params.forEach(param -> param.removeChangeListener(keyListener));
+		params.clear();
+		index.clear();
+		indexValid = true;
+		modCount++;
+	}
+
+}
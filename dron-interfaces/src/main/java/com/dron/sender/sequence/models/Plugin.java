@@ -9,6 +9,7 @@ import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.MediaType;
 
+import com.dron.sender.sequence.utils.ParamsTemplate;
 import com.dron.sender.sequence.utils.ParamsUtils;
 
 public class Plugin extends BaseNotificationModel implements Cloneable {
@@ -67,9 +68,23 @@ public class Plugin extends BaseNotificationModel implements Cloneable {
 
 	private String postBody;
 
+	// Parsed on the first fill, reset when url or body is changed
+	private ParamsTemplate urlTemplate;
+
+	private ParamsTemplate postBodyTemplate;
+
 	private String responce;
 
 	private boolean success;
+
+	// Phase times of the last sent request
+	private RequestTimings timings;
+
+	// Timeouts of the plugin requests in milliseconds, defaults of the
+	// transport are used if they are null
+	private Integer connectTimeoutMillis;
+
+	private Integer readTimeoutMillis;
 	
 	/**
 	 * Structure of parameter way looks like: names of JSON object separated by
@@ -84,12 +99,24 @@ public class Plugin extends BaseNotificationModel implements Cloneable {
 	}
 
 	public HttpEntity<String> fillEntity() {
-		return new HttpEntity<String>(ParamsUtils.fillDataParams(postBody,
-				sequence.getParams()), headers);
+		if (postBody == null) {
+			return new HttpEntity<String>(null, headers);
+		}
+		if (postBodyTemplate == null) {
+			postBodyTemplate = ParamsTemplate.compile(postBody);
+		}
+		return new HttpEntity<String>(ParamsUtils.fillDataParams(
+				postBodyTemplate, sequence.getParams()), headers);
 	}
 
 	public String fillUrl() {
-		return ParamsUtils.fillDataParams(url, sequence.getParams());
+		if (url == null) {
+			return null;
+		}
+		if (urlTemplate == null) {
+			urlTemplate = ParamsTemplate.compile(url);
+		}
+		return ParamsUtils.fillDataParams(urlTemplate, sequence.getParams());
 	}
 
 	public HttpMethod getHttpMethod() {
@@ -110,6 +137,7 @@ public class Plugin extends BaseNotificationModel implements Cloneable {
 	}
 
 	public void setPostBody(String postBody) {
+		postBodyTemplate = null;
 		notifyListeners(this, PROPERTY_POST_BODY, this.postBody,
 				this.postBody = postBody);
 	}
@@ -128,6 +156,7 @@ public class Plugin extends BaseNotificationModel implements Cloneable {
 	}
 
 	public void setUrl(String url) {
+		urlTemplate = null;
 		notifyListeners(this, PROPERTY_URL, this.url, this.url = url);
 	}
 
@@ -170,6 +199,30 @@ public class Plugin extends BaseNotificationModel implements Cloneable {
 	public void setSuccess(boolean success) {
 		this.success = success;
 	}
+
+	public RequestTimings getTimings() {
+		return timings;
+	}
+
+	public void setTimings(RequestTimings timings) {
+		this.timings = timings;
+	}
+
+	public Integer getConnectTimeoutMillis() {
+		return connectTimeoutMillis;
+	}
+
+	public void setConnectTimeoutMillis(Integer connectTimeoutMillis) {
+		this.connectTimeoutMillis = connectTimeoutMillis;
+	}
+
+	public Integer getReadTimeoutMillis() {
+		return readTimeoutMillis;
+	}
+
+	public void setReadTimeoutMillis(Integer readTimeoutMillis) {
+		this.readTimeoutMillis = readTimeoutMillis;
+	}
 	
 	@Override
 	public Plugin clone() {
@@ -177,6 +230,9 @@ public class Plugin extends BaseNotificationModel implements Cloneable {
 		plugin.setId(id);
 		plugin.setName(name);
 		plugin.setSuccess(success);
+		plugin.setTimings(timings);
+		plugin.setConnectTimeoutMillis(connectTimeoutMillis);
+		plugin.setReadTimeoutMillis(readTimeoutMillis);
 		plugin.setPostBody(postBody);
 		plugin.setResponce(responce);
 		plugin.setSequence(sequence);
@@ -0,0 +1,124 @@
+package com.dron.sender.sequence.models;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+
+import com.dron.sender.sequence.utils.ParamsTemplate;
+
+/**
+ * Immutable plugin of a compiled sequence. Created by SequenceDefinition from
+ * the editable plugin, changes of the plugin after that are not seen here.
+ * 
+ * @author Koropatva
+ *
+ */
+public final class PluginDefinition {
+
+	private final String id;
+
+	private final String name;
+
+	private final HttpMethod httpMethod;
+
+	private final String url;
+
+	private final String postBody;
+
+	private final ParamsTemplate urlTemplate;
+
+	private final ParamsTemplate postBodyTemplate;
+
+	private final HttpHeaders headers;
+
+	private final List<FutureParam> futureParams;
+
+	private final Integer connectTimeoutMillis;
+
+	private final Integer readTimeoutMillis;
+
+	PluginDefinition(Plugin plugin) {
+		this.id = plugin.getId();
+		this.name = plugin.getName();
+		this.httpMethod = plugin.getHttpMethod();
+		this.url = plugin.getUrl();
+		this.postBody = plugin.getPostBody();
+		this.urlTemplate = url == null ? null : ParamsTemplate.compile(url);
+		this.postBodyTemplate = postBody == null ? null : ParamsTemplate
+				.compile(postBody);
+
+		HttpHeaders headersCopy = new HttpHeaders();
+		headersCopy.putAll(plugin.getHeaders());
+		this.headers = HttpHeaders.readOnlyHttpHeaders(headersCopy);
+
+		List<FutureParam> futureParamsCopy = new ArrayList<FutureParam>(plugin
+				.getFutureParams().size());
+		for (FutureParam futureParam : plugin.getFutureParams()) {
+			futureParamsCopy.add(new FutureParam(futureParam.getKey(),
+					futureParam.getDependence()));
+		}
+		this.futureParams = Collections.unmodifiableList(futureParamsCopy);
+		this.connectTimeoutMillis = plugin.getConnectTimeoutMillis();
+		this.readTimeoutMillis = plugin.getReadTimeoutMillis();
+	}
+
+	public String getId() {
+		return id;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public HttpMethod getHttpMethod() {
+		return httpMethod;
+	}
+
+	public String getUrl() {
+		return url;
+	}
+
+	public String getPostBody() {
+		return postBody;
+	}
+
+	/**
+	 * @return parsed url, null if the plugin has no url
+	 */
+	public ParamsTemplate getUrlTemplate() {
+		return urlTemplate;
+	}
+
+	/**
+	 * @return parsed body, null if the plugin has no body
+	 */
+	public ParamsTemplate getPostBodyTemplate() {
+		return postBodyTemplate;
+	}
+
+	public HttpHeaders getHeaders() {
+		return headers;
+	}
+
+	public List<FutureParam> getFutureParams() {
+		return futureParams;
+	}
+
+	/**
+	 * @return connect timeout in milliseconds, null for the default one
+	 */
+	public Integer getConnectTimeoutMillis() {
+		return connectTimeoutMillis;
+	}
+
+	/**
+	 * @return read timeout in milliseconds, null for the default one
+	 */
+	public Integer getReadTimeoutMillis() {
+		return readTimeoutMillis;
+	}
+
+}
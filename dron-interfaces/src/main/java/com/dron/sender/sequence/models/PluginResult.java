@@ -0,0 +1,61 @@
+package com.dron.sender.sequence.models;
+
+/**
+ * Result of a plugin sent by a sequence run.
+ * 
+ * @author Koropatva
+ *
+ */
+public final class PluginResult {
+
+	private final String pluginId;
+
+	private final String responce;
+
+	private final boolean success;
+
+	private final long durationNanos;
+
+	private final RequestTimings timings;
+
+	public PluginResult(String pluginId, String responce, boolean success,
+			long durationNanos) {
+		this(pluginId, responce, success, durationNanos, null);
+	}
+
+	public PluginResult(String pluginId, String responce, boolean success,
+			long durationNanos, RequestTimings timings) {
+		this.pluginId = pluginId;
+		this.responce = responce;
+		this.success = success;
+		this.durationNanos = durationNanos;
+		this.timings = timings;
+	}
+
+	public String getPluginId() {
+		return pluginId;
+	}
+
+	public String getResponce() {
+		return responce;
+	}
+
+	public boolean isSuccess() {
+		return success;
+	}
+
+	/**
+	 * @return time from filling the request to handling the response
+	 */
+	public long getDurationNanos() {
+		return durationNanos;
+	}
+
+	/**
+	 * @return phase times of the request, or null if it wasn't sent
+	 */
+	public RequestTimings getTimings() {
+		return timings;
+	}
+
+}
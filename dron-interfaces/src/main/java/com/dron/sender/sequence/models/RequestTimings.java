@@ -0,0 +1,94 @@
+package com.dron.sender.sequence.models;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Where the time of one request went. Phases of a reused connection, like
+ * DNS, connect and TLS, are zero.
+ * 
+ * @author Koropatva
+ *
+ */
+public class RequestTimings {
+
+	private long dnsNanos;
+
+	private long connectNanos;
+
+	private long tlsNanos;
+
+	// From sending the request to the response headers
+	private long ttfbNanos;
+
+	// From the response headers to the end of the body
+	private long downloadNanos;
+
+	private long totalNanos;
+
+	public long getDnsNanos() {
+		return dnsNanos;
+	}
+
+	public void setDnsNanos(long dnsNanos) {
+		this.dnsNanos = dnsNanos;
+	}
+
+	public long getConnectNanos() {
+		return connectNanos;
+	}
+
+	public void setConnectNanos(long connectNanos) {
+		this.connectNanos = connectNanos;
+	}
+
+	public long getTlsNanos() {
+		return tlsNanos;
+	}
+
+	public void setTlsNanos(long tlsNanos) {
+		this.tlsNanos = tlsNanos;
+	}
+
+	public long getTtfbNanos() {
+		return ttfbNanos;
+	}
+
+	public void setTtfbNanos(long ttfbNanos) {
+		this.ttfbNanos = ttfbNanos;
+	}
+
+	public long getDownloadNanos() {
+		return downloadNanos;
+	}
+
+	public void setDownloadNanos(long downloadNanos) {
+		this.downloadNanos = downloadNanos;
+	}
+
+	public long getTotalNanos() {
+		return totalNanos;
+	}
+
+	public void setTotalNanos(long totalNanos) {
+		this.totalNanos = totalNanos;
+	}
+
+	/**
+	 * @return true if the request didn't open a new connection
+	 */
+	public boolean isConnectionReused() {
+		return connectNanos == 0;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("dns: %.2f ms; connect: %.2f ms; tls: %.2f ms; "
+				+ "ttfb: %.2f ms; download: %.2f ms; total: %.2f ms",
+				millis(dnsNanos), millis(connectNanos), millis(tlsNanos),
+				millis(ttfbNanos), millis(downloadNanos), millis(totalNanos));
+	}
+
+	private static double millis(long nanos) {
+		return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+	}
+}
@@ -3,9 +3,10 @@ package com.dron.sender.sequence.models;
 import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.NoSuchElementException;
 
-public class Sequence extends BaseNotificationModel {
+import org.springframework.http.HttpHeaders;
+
+public class Sequence extends BaseNotificationModel implements Cloneable {
 
 	public static final String PROPERTY_ID = "ID";
 
@@ -29,7 +30,7 @@ public class Sequence extends BaseNotificationModel {
 
 	private final List<Plugin> sentPlugins;
 
-	private List<Param> params;
+	private ParamList params;
 
 	private String selectedPluginId;
 
@@ -37,7 +38,7 @@ public class Sequence extends BaseNotificationModel {
 		order = new ArrayList<String>();
 		plugins = new LinkedList<Plugin>();
 		sentPlugins = new LinkedList<Plugin>();
-		params = new ArrayList<Param>();
+		params = new ParamList();
 	}
 
 	public Plugin findPlugin(String id) {
@@ -46,24 +47,24 @@ public class Sequence extends BaseNotificationModel {
 	}
 
 	public String findParam(String key) {
-		try {
-			return params.stream().filter(p -> p.getKey().equals(key))
-					.findFirst().get().getValue();
-		} catch (NoSuchElementException e) {
-			return null;
-		}
+		Param param = params.find(key);
+		return param == null ? null : param.getValue();
+	}
+
+	/**
+	 * @return the first param with the key or null
+	 */
+	public Param getParam(String key) {
+		return params.find(key);
 	}
 
 	public void updateParam(Param param) {
-		params.stream()
-				.filter(p -> p.getKey().equals(param.getKey()))
-				.findFirst()
-				.ifPresent(
-						p -> {
-							notifyListeners(this, PROPERTY_PARAM, p.getValue(),
-									param.getValue());
-							p.setValue(param.getValue());
-						});
+		Param current = params.find(param.getKey());
+		if (current != null) {
+			notifyListeners(this, PROPERTY_PARAM, current.getValue(),
+					param.getValue());
+			current.setValue(param.getValue());
+		}
 	}
 
 	public void addParam(Param param) {
@@ -82,9 +83,21 @@ public class Sequence extends BaseNotificationModel {
 		this.plugins = plugins;
 	}
 
+	/**
+	 * Params are copied into an indexed list, later changes of the given list
+	 * are not seen by the sequence
+	 */
 	public void setParams(List<Param> params) {
 		notifyListeners(this, PROPERTY_PARAMS, this.params,
-				this.params = params);
+				this.params = toParamList(params));
+	}
+
+	private static ParamList toParamList(List<Param> params) {
+		if (params == null) {
+			return new ParamList();
+		}
+		return params instanceof ParamList ? (ParamList) params
+				: new ParamList(params);
 	}
 
 	public String getName() {
@@ -124,4 +137,29 @@ public class Sequence extends BaseNotificationModel {
 		return sentPlugins;
 	}
 
+	/**
+	 * Copy of the sequence with own plugins and params, so it can be run
+	 * independently from the original one. History of sent plugins and
+	 * listeners aren't copied.
+	 */
+	@Override
+	public Sequence clone() {
+		Sequence sequence = new Sequence();
+		sequence.setId(id);
+		sequence.setName(name);
+		sequence.setSelectedPluginId(selectedPluginId);
+		sequence.getOrder().addAll(order);
+		plugins.forEach(plugin -> {
+			Plugin copy = plugin.clone();
+			HttpHeaders headers = new HttpHeaders();
+			headers.putAll(plugin.getHeaders());
+			copy.setHeaders(headers);
+			copy.setSequence(sequence);
+			sequence.getPlugins().add(copy);
+		});
+		params.forEach(param -> sequence.getParams().add(
+				new Param(param.getKey(), param.getValue(), param.isArray())));
+		return sequence;
+	}
+
 }
\ No newline at end of file
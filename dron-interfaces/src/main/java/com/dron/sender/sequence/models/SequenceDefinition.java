@@ -0,0 +1,107 @@
+package com.dron.sender.sequence.models;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.dron.sender.exceptions.HandlerNotReadyException;
+
+/**
+ * Immutable compiled sequence. One definition is shared by any number of
+ * runs, each run keeps only its own changes in SequenceRun, so the sequence
+ * doesn't need to be copied for every run.
+ * 
+ * @author Koropatva
+ *
+ */
+public final class SequenceDefinition {
+
+	private final String id;
+
+	private final String name;
+
+	// Plugins in the order they are sent, a plugin can be repeated
+	private final List<PluginDefinition> plugins;
+
+	private final Map<String, String> params;
+
+	private final Set<String> arrayParams;
+
+	private SequenceDefinition(Sequence sequence, List<PluginDefinition> plugins) {
+		this.id = sequence.getId();
+		this.name = sequence.getName();
+		this.plugins = Collections.unmodifiableList(plugins);
+
+		Map<String, String> paramsCopy = new LinkedHashMap<String, String>();
+		Set<String> arrayParamsCopy = new HashSet<String>();
+		for (Param param : sequence.getParams()) {
+			// The first param with the key is used, like when filling data
+			if (!paramsCopy.containsKey(param.getKey())) {
+				paramsCopy.put(param.getKey(), param.getValue());
+				if (param.isArray()) {
+					arrayParamsCopy.add(param.getKey());
+				}
+			}
+		}
+		this.params = Collections.unmodifiableMap(paramsCopy);
+		this.arrayParams = Collections.unmodifiableSet(arrayParamsCopy);
+	}
+
+	/**
+	 * Compiles the current state of the sequence
+	 * 
+	 * @throws HandlerNotReadyException
+	 *             if the order has a plugin the sequence doesn't have
+	 */
+	public static SequenceDefinition compile(Sequence sequence)
+			throws HandlerNotReadyException {
+		Map<String, PluginDefinition> compiled = new HashMap<String, PluginDefinition>();
+		List<PluginDefinition> plugins = new ArrayList<PluginDefinition>(
+				sequence.getOrder().size());
+		for (String orderedId : sequence.getOrder()) {
+			if (orderedId == null) {
+				throw new HandlerNotReadyException("orderId can't be null");
+			}
+			PluginDefinition plugin = compiled.get(orderedId);
+			if (plugin == null) {
+				Plugin source = sequence.findPlugin(orderedId);
+				if (source == null) {
+					throw new HandlerNotReadyException("Plugin can't be null");
+				}
+				plugin = new PluginDefinition(source);
+				compiled.put(orderedId, plugin);
+			}
+			plugins.add(plugin);
+		}
+		return new SequenceDefinition(sequence, plugins);
+	}
+
+	public String getId() {
+		return id;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public List<PluginDefinition> getPlugins() {
+		return plugins;
+	}
+
+	/**
+	 * @return initial values of params by key
+	 */
+	public Map<String, String> getParams() {
+		return params;
+	}
+
+	public boolean isArrayParam(String key) {
+		return arrayParams.contains(key);
+	}
+
+}
@@ -0,0 +1,170 @@
+package com.dron.sender.sequence.models;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import com.dron.sender.pattern.interfaces.IParamContext;
+import com.dron.sender.sequence.enums.TransportType;
+import com.dron.sender.sequence.utils.ParamsTemplate;
+import com.dron.sender.sequence.utils.ParamsUtils;
+
+/**
+ * State of one run of a sequence definition. Params set during the run are
+ * kept on top of the definition params, the definition itself is never
+ * changed. Not thread-safe, a run is executed by one thread at a time.
+ * 
+ * @author Koropatva
+ *
+ */
+public class SequenceRun implements IParamContext {
+
+	private final SequenceDefinition definition;
+
+	// Created on the first change, unchanged params are read from definition
+	private Map<String, String> params;
+
+	// Params with random values filled in this iteration
+	private Map<String, String> randomParams;
+
+	private final List<PluginResult> results = new ArrayList<PluginResult>();
+
+	// Source of random values, pools of pre-generated values if null
+	private Random random;
+
+	// Time a run may take in milliseconds, 0 if it is not limited
+	private long deadlineMillis;
+
+	// Default transport of the request runner if null
+	private TransportType transportType;
+
+	public SequenceRun(SequenceDefinition definition) {
+		this.definition = definition;
+	}
+
+	public SequenceDefinition getDefinition() {
+		return definition;
+	}
+
+	public String getParam(String key) {
+		if (params != null && params.containsKey(key)) {
+			return params.get(key);
+		}
+		if (randomParams != null && randomParams.containsKey(key)) {
+			return randomParams.get(key);
+		}
+		return definition.getParams().get(key);
+	}
+
+	/**
+	 * Sets value of the param for this run. Value of array param is added to
+	 * the array.
+	 */
+	@Override
+	public void putParam(String key, String value) {
+		String newValue = value;
+		if (definition.isArrayParam(key)) {
+			String current = getParam(key);
+			newValue = current == null ? "[" + value + "]" : current
+					.substring(0, current.length() - 1) + ", " + value + "]";
+		}
+		if (params == null) {
+			params = new HashMap<String, String>();
+		}
+		params.put(key, newValue);
+		if (randomParams != null) {
+			randomParams.remove(key);
+		}
+	}
+
+	/**
+	 * Starts the next iteration of the run. Random values and array params
+	 * are filled again, results are cleared. Other params set from
+	 * responses are kept, like a session of a user.
+	 */
+	public void reset() {
+		randomParams = null;
+		if (params != null) {
+			params.keySet().removeIf(definition::isArrayParam);
+		}
+		results.clear();
+	}
+
+	/**
+	 * Fills the data with params of the run and random values. Random values
+	 * of a param are generated once and kept until the run is reset.
+	 */
+	public String fillData(String data) {
+		if (data == null) {
+			return null;
+		}
+		return fill(ParamsTemplate.compile(data));
+	}
+
+	public String fill(ParamsTemplate template) {
+		if (template.isLiteral()) {
+			return template.getSource();
+		}
+		return template.render(key -> {
+			String value = getParam(key);
+			if (value == null) {
+				return null;
+			}
+			String newValue = ParamsUtils.fillRandomValue(value, random);
+			if (!newValue.equals(value)) {
+				if (randomParams == null) {
+					randomParams = new HashMap<String, String>();
+				}
+				randomParams.put(key, newValue);
+			}
+			return newValue;
+		}, random);
+	}
+
+	public Random getRandom() {
+		return random;
+	}
+
+	/**
+	 * Sets the source of random values, like SeededRandom to get the same
+	 * values on every run
+	 */
+	public void setRandom(Random random) {
+		this.random = random;
+	}
+
+	public long getDeadlineMillis() {
+		return deadlineMillis;
+	}
+
+	/**
+	 * Limits the time of a run, requests in flight at the deadline are
+	 * cancelled and the rest plugins are not sent. 0 means no limit.
+	 */
+	public void setDeadlineMillis(long deadlineMillis) {
+		this.deadlineMillis = deadlineMillis;
+	}
+
+	public TransportType getTransportType() {
+		return transportType;
+	}
+
+	public void setTransportType(TransportType transportType) {
+		this.transportType = transportType;
+	}
+
+	public void addResult(PluginResult result) {
+		results.add(result);
+	}
+
+	public List<PluginResult> getResults() {
+		return results;
+	}
+
+	public void clearResults() {
+		results.clear();
+	}
+
+}
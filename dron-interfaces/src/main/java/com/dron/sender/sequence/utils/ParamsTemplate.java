@@ -0,0 +1,251 @@
+package com.dron.sender.sequence.utils;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+
+/**
+ * Url or body parsed once into literal, param ("{{key}}") and random value
+ * ("{#EMAIL#}", "{#regex:...#}") segments. Rendering appends the segments to one buffer instead
+ * of replacing params in the string one by one.
+ *
+ * @author Koropatva
+ *
+ */
+public final class ParamsTemplate {
+
+	private static final int MAX_CACHED_TEMPLATES = 10000;
+
+	// Values of params can have params too, deeper values are left as is
+	private static final int MAX_DEPTH = 10;
+
+	// Buffers bigger than this are not kept between renders
+	private static final int MAX_KEPT_BUFFER = 1 << 20;
+
+	private static final ConcurrentMap<String, ParamsTemplate> CACHE = new ConcurrentHashMap<String, ParamsTemplate>();
+
+	private static final ThreadLocal<Buffer> BUFFER = new ThreadLocal<Buffer>() {
+		@Override
+		protected Buffer initialValue() {
+			return new Buffer();
+		}
+	};
+
+	// Render buffer of a thread, a render started from values function gets
+	// a new builder as the buffer is in use
+	private static final class Buffer {
+
+		private StringBuilder builder = new StringBuilder(256);
+
+		private boolean inUse;
+	}
+
+	private enum SegmentType {
+		LITERAL, PARAM, RANDOM
+	}
+
+	private static final class Segment {
+
+		private final SegmentType type;
+
+		// Literal text, key of param or the random value token
+		private final String text;
+
+		// Equal random value tokens share one value in a render
+		private final int slot;
+
+		private final RandomValuePool pool;
+
+		private Segment(SegmentType type, String text, int slot,
+				RandomValuePool pool) {
+			this.type = type;
+			this.text = text;
+			this.slot = slot;
+			this.pool = pool;
+		}
+	}
+
+	private final String source;
+
+	private final Segment[] segments;
+
+	private final int randomSlots;
+
+	private final int literalLength;
+
+	private ParamsTemplate(String source, Segment[] segments, int randomSlots) {
+		this.source = source;
+		this.segments = segments;
+		this.randomSlots = randomSlots;
+		int length = 0;
+		for (Segment segment : segments) {
+			if (segment.type == SegmentType.LITERAL) {
+				length += segment.text.length();
+			}
+		}
+		this.literalLength = length;
+	}
+
+	/**
+	 * @return parsed template, the same instance for the same data while it
+	 *         is cached
+	 */
+	public static ParamsTemplate compile(String data) {
+		ParamsTemplate template = CACHE.get(data);
+		if (template == null) {
+			template = parse(data);
+			if (CACHE.size() < MAX_CACHED_TEMPLATES) {
+				ParamsTemplate cached = CACHE.putIfAbsent(data, template);
+				if (cached != null) {
+					template = cached;
+				}
+			}
+		}
+		return template;
+	}
+
+	public String getSource() {
+		return source;
+	}
+
+	/**
+	 * @return true if the template has no params and random values
+	 */
+	public boolean isLiteral() {
+		return segments.length == 0
+				|| (segments.length == 1 && segments[0].type == SegmentType.LITERAL);
+	}
+
+	/**
+	 * Renders the template. Values are taken from the function by param key,
+	 * like "{{key}}", params without value are left as is.
+	 */
+	public String render(Function<String, String> values) {
+		return render(values, null);
+	}
+
+	/**
+	 * Renders the template with random values generated from the random,
+	 * pools of pre-generated values are used if it is null
+	 */
+	public String render(Function<String, String> values, Random random) {
+		if (isLiteral()) {
+			return source;
+		}
+		Buffer threadBuffer = BUFFER.get();
+		if (threadBuffer.inUse) {
+			StringBuilder builder = new StringBuilder(literalLength + 16
+					* segments.length);
+			appendTo(builder, values, random, 0);
+			return builder.toString();
+		}
+
+		threadBuffer.inUse = true;
+		try {
+			StringBuilder builder = threadBuffer.builder;
+			builder.setLength(0);
+			builder.ensureCapacity(literalLength + 16 * segments.length);
+			appendTo(builder, values, random, 0);
+			String result = builder.toString();
+			if (builder.capacity() > MAX_KEPT_BUFFER) {
+				threadBuffer.builder = new StringBuilder(256);
+			}
+			return result;
+		} finally {
+			threadBuffer.inUse = false;
+		}
+	}
+
+	private void appendTo(StringBuilder buffer,
+			Function<String, String> values, Random random, int depth) {
+		String[] randomValues = randomSlots > 0 ? new String[randomSlots]
+				: null;
+		for (Segment segment : segments) {
+			switch (segment.type) {
+				case LITERAL:
+					buffer.append(segment.text);
+					break;
+				case PARAM:
+					String value = values.apply(segment.text);
+					if (value == null) {
+						buffer.append(segment.text);
+					} else if (depth < MAX_DEPTH
+							&& value.contains(ParamsUtils.PARAM_PREFIX)) {
+						compile(value).appendTo(buffer, values, random,
+								depth + 1);
+					} else {
+						buffer.append(value);
+					}
+					break;
+				case RANDOM:
+					if (randomValues[segment.slot] == null) {
+						randomValues[segment.slot] = random == null ? segment.pool
+								.next() : segment.pool.getGenerator().generate(
+								random);
+					}
+					buffer.append(randomValues[segment.slot]);
+					break;
+			}
+		}
+	}
+
+	private static ParamsTemplate parse(String data) {
+		if (data == null) {
+			throw new IllegalArgumentException("Template can't be null");
+		}
+		List<Segment> segments = new ArrayList<Segment>();
+		Map<String, Integer> randomSlots = new HashMap<String, Integer>();
+		int literalStart = 0;
+		int index = 0;
+		while (index < data.length()) {
+			int paramStart = data.indexOf(ParamsUtils.PARAM_PREFIX, index);
+			int randomStart = data.indexOf(ParamsUtils.RANDOM_VALUE_PREFIX,
+					index);
+			boolean param = paramStart >= 0
+					&& (randomStart < 0 || paramStart < randomStart);
+			int start = param ? paramStart : randomStart;
+			if (start < 0) {
+				break;
+			}
+			String sufix = param ? ParamsUtils.PARAM_SUFIX
+					: ParamsUtils.RANDOM_VALUE_SUFIX;
+			int end = data.indexOf(sufix, start + 2);
+			if (end < 0) {
+				break;
+			}
+			end += sufix.length();
+
+			if (start > literalStart) {
+				segments.add(new Segment(SegmentType.LITERAL, data.substring(
+						literalStart, start), -1, null));
+			}
+			String token = data.substring(start, end);
+			if (param) {
+				segments.add(new Segment(SegmentType.PARAM, token, -1, null));
+			} else {
+				Integer slot = randomSlots.get(token);
+				if (slot == null) {
+					slot = randomSlots.size();
+					randomSlots.put(token, slot);
+				}
+				RandomValuePool pool = ParamsUtils.getPlaceholderPool(token);
+				// Values are generated before the template is rendered
+				pool.warmUp();
+				segments.add(new Segment(SegmentType.RANDOM, token, slot, pool));
+			}
+			index = end;
+			literalStart = end;
+		}
+		if (literalStart < data.length()) {
+			segments.add(new Segment(SegmentType.LITERAL, data
+					.substring(literalStart), -1, null));
+		}
+		return new ParamsTemplate(data, segments.toArray(new Segment[segments
+				.size()]), randomSlots.size());
+	}
+}
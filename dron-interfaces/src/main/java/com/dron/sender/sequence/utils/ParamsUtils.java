@@ -1,12 +1,16 @@
 package com.dron.sender.sequence.utils;
 
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.regex.Pattern;
-
-import nl.flotsam.xeger.Xeger;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.Function;
 
 import com.dron.sender.sequence.enums.XegerTypes;
 import com.dron.sender.sequence.models.Param;
+import com.dron.sender.sequence.models.ParamList;
 
 public class ParamsUtils {
 
@@ -15,100 +19,182 @@ public class ParamsUtils {
 	private static final String TIME_REGEX = "([01][1-9]|2[0-3]|00):([0-5][0-9])";
 	private static final String DATE_REGEX = "(0[1-9]|[12][0-9]|3[01])/(0[1-9]|1[012])/((19|20)[0-9][0-9])";
 	private static final String DEFAULT_STRING_REGEX = "[a-zA-Z]{5,10}";
-	private static final String PARAM_PREFIX = "{{";
-	private static final String PARAM_SUFIX = "}}";
-	private static final String RANDOM_VALUE_PREFIX = "{#";
-	private static final String RANDOM_VALUE_SUFIX = "#}";
+	static final String PARAM_PREFIX = "{{";
+	static final String PARAM_SUFIX = "}}";
+	static final String RANDOM_VALUE_PREFIX = "{#";
+	static final String RANDOM_VALUE_SUFIX = "#}";
+	static final String REGEX_PLACEHOLDER_PREFIX = "regex:";
+
+	// Generators of XegerTypes entries by name
+	private static final Map<String, RandomValueGenerator> TYPE_GENERATORS = createTypeGenerators();
 
 	public static String fillDataParams(String data, List<Param> params) {
 		if (data == null)
 			return null;
 
-		String param = getFirstParamFromData(data);
-		while (param != null) {
-			data = data.replace(param, getValue(param, params));
-			param = getFirstParamFromData(data);
+		return fillDataParams(ParamsTemplate.compile(data), params);
+	}
+
+	/**
+	 * Renders the template with values of the params. Params with random
+	 * values get the generated value.
+	 */
+	public static String fillDataParams(ParamsTemplate template,
+			List<Param> params) {
+		if (template.isLiteral()) {
+			return template.getSource();
+		}
+		if (params instanceof ParamList) {
+			ParamList paramList = (ParamList) params;
+			return template.render(key -> getValue(paramList.find(key)));
 		}
-		data = fillRandomValue(data);
-		return data;
+		// The first param with the key is used
+		Map<String, Param> paramsByKey = new HashMap<String, Param>(
+				params.size() * 2);
+		for (Param param : params) {
+			paramsByKey.putIfAbsent(param.getKey(), param);
+		}
+		return template.render(key -> getValue(paramsByKey.get(key)));
 	}
 
-	public static String fillRandomValue(String data) {
-		String randomValue = getFirstRandomValueFromData(data);
-		while (randomValue != null) {
-			data = data.replace(randomValue, getRandomValue());
-			randomValue = getFirstRandomValueFromData(data);
+	/**
+	 * Fills the data with values the function gives for param keys, like
+	 * "{{key}}". Params without value are left as is.
+	 */
+	public static String fillDataParams(String data,
+			Function<String, String> values) {
+		if (data == null)
+			return null;
+
+		return ParamsTemplate.compile(data).render(values);
+	}
+
+	/**
+	 * @return keys of all params used in the data, like "{{key}}"
+	 */
+	public static Set<String> findParamKeys(String data) {
+		Set<String> keys = new LinkedHashSet<String>();
+		if (data == null) {
+			return keys;
+		}
+		int beginIndex = data.indexOf(PARAM_PREFIX);
+		while (beginIndex >= 0) {
+			int endIndex = data.indexOf(PARAM_SUFIX, beginIndex);
+			if (endIndex < 0) {
+				break;
+			}
+			keys.add(data.substring(beginIndex, endIndex + PARAM_SUFIX.length()));
+			beginIndex = data.indexOf(PARAM_PREFIX, endIndex);
 		}
-		return data;
+		return keys;
+	}
+
+	public static String fillRandomValue(String data) {
+		return fillRandomValue(data, null);
+	}
+
+	/**
+	 * Fills random values generated from the random, from pre-generated pools
+	 * if it is null
+	 */
+	public static String fillRandomValue(String data, Random random) {
+		// Most values are not templates, they are not parsed and cached
+		if (data == null || !data.contains(RANDOM_VALUE_PREFIX))
+			return data;
+
+		return ParamsTemplate.compile(data).render(key -> null, random);
 	}
 
 	public static String getRandomValue() {
 		return getRandomValue(DEFAULT_STRING_REGEX);
 	}
 
-	private static String getRandomValue(String regex) {
-		try {
-			if (XegerTypes.valueOf(regex) != null) {
-				switch (XegerTypes.valueOf(regex)) {
-					case DATE:
-						regex = DATE_REGEX;
-						break;
-					case TIME:
-						regex = TIME_REGEX;
-						break;
-					case DATETIME:
-						regex = DATE_REGEX + " " + TIME_REGEX;
-						break;
-					case EMAIL:
-						regex = EMAIL_REGEX;
-						break;
-					case INT:
-						regex = DEFAULT_INT_REGEX;
-						break;
-					case STRING:
-						regex = DEFAULT_STRING_REGEX;
-						break;
-				}
-			}
-			Pattern.compile(regex);
-		} catch (Exception e) {
-			regex = DEFAULT_STRING_REGEX;
-		}
-		Xeger generator = new Xeger(regex);
-		return generator.generate();
+	/**
+	 * @return value of the XegerTypes entry with the name or of the regex,
+	 *         taken from the pool of pre-generated values
+	 */
+	public static String getRandomValue(String regex) {
+		return RandomValuePool.of(getGenerator(regex)).next();
 	}
 
-	private static String getFirstParamFromData(String data) {
-		int beginIndex = data.indexOf(PARAM_PREFIX);
-		int endIndex = data.indexOf(PARAM_SUFIX) + PARAM_SUFIX.length();
-		if (beginIndex >= 0 && endIndex >= 0) {
-			return data.substring(beginIndex, endIndex);
+	/**
+	 * Pool of the random value placeholder: "{#EMAIL#}" and other XegerTypes
+	 * entries, "{#regex:[0-9]{3}#}" for a regex. Regex can't have "#}".
+	 * Other placeholders give a default string.
+	 */
+	static RandomValuePool getPlaceholderPool(String placeholder) {
+		String name = placeholder.substring(RANDOM_VALUE_PREFIX.length(),
+				placeholder.length() - RANDOM_VALUE_SUFIX.length());
+		RandomValueGenerator generator;
+		if (name.startsWith(REGEX_PLACEHOLDER_PREFIX)) {
+			try {
+				generator = RandomValueGenerator.forRegex(name
+						.substring(REGEX_PLACEHOLDER_PREFIX.length()));
+			} catch (Exception e) {
+				generator = TYPE_GENERATORS.get(XegerTypes.STRING.name());
+			}
 		} else {
-			return null;
+			generator = TYPE_GENERATORS.get(name);
+			if (generator == null) {
+				generator = TYPE_GENERATORS.get(XegerTypes.STRING.name());
+			}
 		}
+		return RandomValuePool.of(generator);
 	}
 
-	private static String getFirstRandomValueFromData(String data) {
-		int beginIndex = data.indexOf(RANDOM_VALUE_PREFIX);
-		int endIndex = data.indexOf(RANDOM_VALUE_SUFIX)
-				+ RANDOM_VALUE_SUFIX.length();
-		if (beginIndex >= 0 && endIndex >= 0) {
-			return data.substring(beginIndex, endIndex);
-		} else {
-			return null;
+	/**
+	 * @return cached generator of the XegerTypes entry with the name or of
+	 *         the regex, generator of a default string if the regex is wrong
+	 */
+	static RandomValueGenerator getGenerator(String regex) {
+		RandomValueGenerator generator = TYPE_GENERATORS.get(regex);
+		if (generator != null) {
+			return generator;
+		}
+		try {
+			return RandomValueGenerator.forRegex(regex);
+		} catch (Exception e) {
+			return RandomValueGenerator.forRegex(DEFAULT_STRING_REGEX);
 		}
 	}
 
-	private static String getValue(String key, List<Param> params) {
-		for (Param param : params) {
-			if (param.getKey().equals(key)) {
-				String newValue = fillRandomValue(param.getValue());
-				if (!newValue.equals(param.getValue())) {
-					param.setValue(newValue);
-				}
-				return newValue;
+	private static Map<String, RandomValueGenerator> createTypeGenerators() {
+		Map<String, RandomValueGenerator> generators = new HashMap<String, RandomValueGenerator>();
+		for (XegerTypes type : XegerTypes.values()) {
+			String regex;
+			switch (type) {
+				case DATE:
+					regex = DATE_REGEX;
+					break;
+				case TIME:
+					regex = TIME_REGEX;
+					break;
+				case DATETIME:
+					regex = DATE_REGEX + " " + TIME_REGEX;
+					break;
+				case EMAIL:
+					regex = EMAIL_REGEX;
+					break;
+				case INT:
+					regex = DEFAULT_INT_REGEX;
+					break;
+				default:
+					regex = DEFAULT_STRING_REGEX;
+					break;
 			}
+			generators.put(type.name(), RandomValueGenerator.forRegex(regex));
+		}
+		return generators;
+	}
+
+	private static String getValue(Param param) {
+		if (param == null || param.getValue() == null) {
+			return null;
+		}
+		String newValue = fillRandomValue(param.getValue());
+		if (!newValue.equals(param.getValue())) {
+			param.setValue(newValue);
 		}
-		return null;
+		return newValue;
 	}
 }
\ No newline at end of file
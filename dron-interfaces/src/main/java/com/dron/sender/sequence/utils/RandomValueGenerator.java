@@ -0,0 +1,137 @@
+package com.dron.sender.sequence.utils;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.regex.Pattern;
+
+import dk.brics.automaton.Automaton;
+import dk.brics.automaton.RegExp;
+import dk.brics.automaton.State;
+import dk.brics.automaton.Transition;
+
+/**
+ * Generates random strings matching a regex, like Xeger does. The automaton
+ * of a regex is built once and kept as plain arrays, generators are cached
+ * per regex and shared by all threads. Each thread draws from its own random
+ * source, so generation doesn't contend.
+ *
+ * @author Koropatva
+ *
+ */
+public final class RandomValueGenerator {
+
+	private static final int MAX_CACHED_GENERATORS = 1000;
+
+	private static final ConcurrentMap<String, RandomValueGenerator> CACHE = new ConcurrentHashMap<String, RandomValueGenerator>();
+
+	private final String regex;
+
+	private final int initial;
+
+	private final boolean[] accept;
+
+	// Transitions of a state sorted like Xeger sorts them: min and max char of
+	// the transition range and the destination state
+	private final char[][] min;
+
+	private final char[][] max;
+
+	private final int[][] destination;
+
+	private RandomValueGenerator(String regex, Automaton automaton) {
+		this.regex = regex;
+		Set<State> states = automaton.getStates();
+		Map<State, Integer> indexes = new HashMap<State, Integer>(
+				states.size() * 2);
+		for (State state : states) {
+			indexes.put(state, indexes.size());
+		}
+
+		accept = new boolean[states.size()];
+		min = new char[states.size()][];
+		max = new char[states.size()][];
+		destination = new int[states.size()][];
+		for (State state : states) {
+			int index = indexes.get(state);
+			List<Transition> transitions = state.getSortedTransitions(true);
+			accept[index] = state.isAccept();
+			min[index] = new char[transitions.size()];
+			max[index] = new char[transitions.size()];
+			destination[index] = new int[transitions.size()];
+			for (int i = 0; i < transitions.size(); i++) {
+				Transition transition = transitions.get(i);
+				min[index][i] = transition.getMin();
+				max[index][i] = transition.getMax();
+				destination[index][i] = indexes.get(transition.getDest());
+			}
+		}
+		initial = indexes.get(automaton.getInitialState());
+	}
+
+	/**
+	 * @return generator of the regex, the same instance for the same regex
+	 *         while it is cached
+	 * @throws IllegalArgumentException
+	 *             if the regex can't be parsed, PatternSyntaxException is one
+	 *             of them
+	 */
+	public static RandomValueGenerator forRegex(String regex) {
+		RandomValueGenerator generator = CACHE.get(regex);
+		if (generator == null) {
+			// Regex should be valid for java too, like it was checked before
+			Pattern.compile(regex);
+			generator = new RandomValueGenerator(regex,
+					new RegExp(regex).toAutomaton());
+			if (CACHE.size() < MAX_CACHED_GENERATORS) {
+				RandomValueGenerator cached = CACHE.putIfAbsent(regex,
+						generator);
+				if (cached != null) {
+					generator = cached;
+				}
+			}
+		}
+		return generator;
+	}
+
+	public String getRegex() {
+		return regex;
+	}
+
+	/**
+	 * Generates a value with the random source of the current thread
+	 */
+	public String generate() {
+		return generate(ThreadLocalRandom.current());
+	}
+
+	public String generate(Random random) {
+		StringBuilder builder = new StringBuilder(16);
+		int state = initial;
+		while (true) {
+			int transitions = destination[state].length;
+			if (transitions == 0) {
+				return builder.toString();
+			}
+			// Accepting state can stop, it is one more option
+			int option;
+			if (accept[state]) {
+				option = random.nextInt(transitions + 1) - 1;
+				if (option < 0) {
+					return builder.toString();
+				}
+			} else {
+				option = random.nextInt(transitions);
+			}
+			char from = min[state][option];
+			char to = max[state][option];
+			builder.append((char) (from + random.nextInt(to - from + 1)));
+			state = destination[state][option];
+		}
+	}
+}
@@ -0,0 +1,109 @@
+package com.dron.sender.sequence.utils;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Values of a generator generated ahead by a background thread. Taking a
+ * value only polls the queue, the pool is filled up again when it is half
+ * empty. If the pool is empty the value is generated by the caller.
+ *
+ * @author Koropatva
+ *
+ */
+public final class RandomValuePool {
+
+	private static final int CAPACITY = 1024;
+
+	private static final int MAX_POOLS = 1000;
+
+	private static final ConcurrentMap<RandomValueGenerator, RandomValuePool> POOLS = new ConcurrentHashMap<RandomValueGenerator, RandomValuePool>();
+
+	private static volatile ExecutorService filler;
+
+	private final RandomValueGenerator generator;
+
+	private final ConcurrentLinkedQueue<String> values = new ConcurrentLinkedQueue<String>();
+
+	// Size of the queue, ConcurrentLinkedQueue.size() walks the queue
+	private final AtomicInteger size = new AtomicInteger();
+
+	private final AtomicBoolean filling = new AtomicBoolean();
+
+	private RandomValuePool(RandomValueGenerator generator) {
+		this.generator = generator;
+	}
+
+	/**
+	 * @return pool of the generator, the same instance for the same generator
+	 */
+	public static RandomValuePool of(RandomValueGenerator generator) {
+		RandomValuePool pool = POOLS.get(generator);
+		if (pool == null) {
+			pool = new RandomValuePool(generator);
+			if (POOLS.size() < MAX_POOLS) {
+				RandomValuePool cached = POOLS.putIfAbsent(generator, pool);
+				if (cached != null) {
+					pool = cached;
+				}
+			}
+		}
+		return pool;
+	}
+
+	public RandomValueGenerator getGenerator() {
+		return generator;
+	}
+
+	public String next() {
+		String value = values.poll();
+		if (value != null) {
+			size.decrementAndGet();
+		}
+		if (size.get() < CAPACITY / 2) {
+			warmUp();
+		}
+		return value != null ? value : generator.generate();
+	}
+
+	/**
+	 * Starts filling the pool in the background, if it is not being filled
+	 */
+	public void warmUp() {
+		if (filling.compareAndSet(false, true)) {
+			getFiller().execute(this::fill);
+		}
+	}
+
+	private void fill() {
+		try {
+			while (size.get() < CAPACITY) {
+				values.offer(generator.generate());
+				size.incrementAndGet();
+			}
+		} finally {
+			filling.set(false);
+		}
+	}
+
+	private static ExecutorService getFiller() {
+		if (filler == null) {
+			synchronized (RandomValuePool.class) {
+				if (filler == null) {
+					filler = Executors.newSingleThreadExecutor(runnable -> {
+						Thread thread = new Thread(runnable,
+								"dron-random-values");
+						thread.setDaemon(true);
+						return thread;
+					});
+				}
+			}
+		}
+		return filler;
+	}
+}
@@ -0,0 +1,53 @@
+package com.dron.sender.sequence.utils;
+
+import java.util.Random;
+import java.util.SplittableRandom;
+
+/**
+ * Reproducible random stream of one iteration of a virtual user. The stream
+ * is derived from (seed, user, iteration) only, so values of any iteration
+ * can be generated again without replaying the run before it.
+ *
+ * @author Koropatva
+ *
+ */
+public final class SeededRandom extends Random {
+
+	private static final long serialVersionUID = 1L;
+
+	private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+	private final SplittableRandom random;
+
+	private SeededRandom(long seed) {
+		random = new SplittableRandom(seed);
+	}
+
+	public static SeededRandom forIteration(long seed, int user,
+			long iteration) {
+		long userSeed = mix(seed + GOLDEN_GAMMA * (user + 1L));
+		return new SeededRandom(mix(userSeed + GOLDEN_GAMMA * (iteration + 1)));
+	}
+
+	@Override
+	protected int next(int bits) {
+		return (int) (random.nextLong() >>> (64 - bits));
+	}
+
+	@Override
+	public int nextInt(int bound) {
+		return random.nextInt(bound);
+	}
+
+	@Override
+	public long nextLong() {
+		return random.nextLong();
+	}
+
+	// Finalizer of SplitMix64, spreads near seeds over all bits
+	private static long mix(long z) {
+		z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+		z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+		return z ^ (z >>> 31);
+	}
+}
@@ -1,22 +1,34 @@
 package com.dron.sender;
 
+import java.io.IOException;
+
 import javafx.application.Application;
 import javafx.stage.Stage;
 
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.annotation.AnnotationConfigApplicationContext;
 
 import com.dron.sender.config.AppConfiguration;
+import com.dron.sender.config.AppProperties;
 import com.dron.sender.controllers.base.interfaces.IStageService;
 import com.dron.sender.controllers.base.models.ControllerEnum;
+import com.dron.sender.metrics.MetricsRegistry;
+import com.dron.sender.metrics.MetricsServer;
 
 public class MainApp extends Application {
 
+	private static final Log LOG = LogFactory.getLog(MainApp.class);
+
 	private ApplicationContext ctx;
 
+	private MetricsServer metricsServer;
+
 	@Override
 	public void start(Stage primaryStage) throws Exception {
 		ctx = new AnnotationConfigApplicationContext(AppConfiguration.class);
+		startMetrics(ctx.getBean(AppProperties.class));
 
 		IStageService iStageService = ctx.getBean(IStageService.class);
 		iStageService.initPrimaryStage(primaryStage);
@@ -24,6 +36,28 @@ public class MainApp extends Application {
 		iStageService.showController(ControllerEnum.ROOT);
 	}
 
+	@Override
+	public void stop() throws Exception {
+		if (metricsServer != null) {
+			metricsServer.stop();
+		}
+	}
+
+	private void startMetrics(AppProperties appProperties) {
+		MetricsRegistry registry = MetricsRegistry.getInstance();
+		registry.registerMBean();
+		Integer port = appProperties.getMetricsPort();
+		if (port != null && port > 0) {
+			try {
+				metricsServer = new MetricsServer(registry, port);
+				metricsServer.start();
+			} catch (IOException e) {
+				LOG.warn("Metrics endpoint can't be started: "
+						+ e.getMessage());
+			}
+		}
+	}
+
 	public static void main(String[] args) {
 		launch(args);
 	}
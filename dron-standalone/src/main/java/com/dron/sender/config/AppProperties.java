@@ -21,6 +21,18 @@ public class AppProperties {
 	@Value("${request.duration.time.minuts}")
 	private Integer requestDuration;
 
+	// Port of the Prometheus endpoint, it is not started if the port is 0
+	@Value("${metrics.port:0}")
+	private Integer metricsPort;
+
+	public Integer getMetricsPort() {
+		return metricsPort;
+	}
+
+	public void setMetricsPort(Integer metricsPort) {
+		this.metricsPort = metricsPort;
+	}
+
 	public Integer getRequestDuration() {
 		return requestDuration;
 	}
@@ -145,6 +145,11 @@ public class RootController extends BaseRootController implements
 
 	@FXML
 	protected void stopSendingSequence() {
+		// Task aborts the request in flight and skips the rest plugins
+		if (getSendRequestTask() != null) {
+			getSendRequestTask().cancel();
+			setSendRequestTask(null);
+		}
 		if (getSendRequestThread() != null) {
 			getSendRequestThread().interrupt();
 			setSendRequestThread(null);
@@ -31,6 +31,7 @@ public class RootConfig {
 		switch (method) {
 			case "POST":
 			case "PUT":
+			case "PATCH":
 				postPosition = 0.3;
 				txaPostBody.setVisible(true);
 				spHeaders.setDividerPositions(headerPosition, postPosition, 1.0
@@ -2,6 +2,7 @@ package com.dron.sender.controllers.root.models;
 
 import java.io.File;
 
+import javafx.concurrent.Task;
 import javafx.fxml.FXML;
 import javafx.scene.Parent;
 import javafx.scene.control.Accordion;
@@ -94,6 +95,8 @@ public abstract class BaseRootController extends Parent {
 	// Thread that is using for send sequence requests
 	private Thread sendRequestThread;
 
+	private Task<?> sendRequestTask;
+
 	public void setUp(BaseRootController modelRootController) {
 		this.tfUrl = modelRootController.getTfUrl();
 		this.tfNewPluginName = modelRootController.getTfNewPluginName();
@@ -118,6 +121,7 @@ public abstract class BaseRootController extends Parent {
 		this.tmpImportSequence = modelRootController.getTmpImportSequence();
 		this.tmpImportFile = modelRootController.getTmpImportFile();
 		this.sendRequestThread = modelRootController.getSendRequestThread();
+		this.sendRequestTask = modelRootController.getSendRequestTask();
 		this.lvHistory = modelRootController.getLvHistory();
 		this.spHeaders = modelRootController.getSpHeaders();
 		this.spParams = modelRootController.getSpParams();
@@ -215,6 +219,14 @@ public abstract class BaseRootController extends Parent {
 		this.sendRequestThread = sendRequestThread;
 	}
 
+	public Task<?> getSendRequestTask() {
+		return sendRequestTask;
+	}
+
+	public void setSendRequestTask(Task<?> sendRequestTask) {
+		this.sendRequestTask = sendRequestTask;
+	}
+
 	public ListView<HistoryUiPlugin> getLvHistory() {
 		return lvHistory;
 	}
@@ -65,9 +65,9 @@ public class InitializeStrategy extends BaseRootController implements
 		});
 
 		cbMethods.disableProperty().bind(RootConfig.getDisableRootProperty());
-		cbMethods.getItems().addAll(HttpMethod.GET.name(),
-				HttpMethod.POST.name(), HttpMethod.PUT.name(),
-				HttpMethod.DELETE.name());
+		for (HttpMethod httpMethod : HttpMethod.values()) {
+			cbMethods.getItems().add(httpMethod.name());
+		}
 		cbMethods.getSelectionModel().selectedItemProperty()
 				.addListener((observable, oldValue, newValue) -> {
 					cbMethods.getSelectionModel().select(newValue);
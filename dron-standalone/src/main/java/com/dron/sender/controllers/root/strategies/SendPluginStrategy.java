@@ -56,6 +56,7 @@ public class SendPluginStrategy extends BaseRootController implements
 
 		PluginTask pluginTask = new PluginTask(sequence, ctx);
 
+		controller.setSendRequestTask(pluginTask);
 		controller.setSendRequestThread(new Thread(pluginTask));
 		controller.getSendRequestThread().start();
 	}
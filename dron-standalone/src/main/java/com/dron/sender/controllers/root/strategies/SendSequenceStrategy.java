@@ -58,6 +58,7 @@ public class SendSequenceStrategy extends BaseRootController implements
 
 		SequenceTask sequenceTask = new SequenceTask(sequence, ctx);
 
+		controller.setSendRequestTask(sequenceTask);
 		controller.setSendRequestThread(new Thread(sequenceTask));
 		controller.getSendRequestThread().start();
 	}
@@ -3,12 +3,15 @@ package com.dron.sender.controllers.root.tasks;
 import javafx.application.Platform;
 import javafx.concurrent.Task;
 
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
 import org.springframework.context.ApplicationContext;
 
 import com.dron.sender.controllers.root.RootController;
 import com.dron.sender.exceptions.DronSenderException;
 import com.dron.sender.exceptions.HandlerNotReadyException;
 import com.dron.sender.exceptions.RequestException;
+import com.dron.sender.metrics.ErrorMetrics;
 import com.dron.sender.pattern.models.strategy.ControllerActionStrategy;
 import com.dron.sender.pattern.models.transformers.TransformKey;
 import com.dron.sender.pattern.services.strategies.ControllerStrategyContext;
@@ -18,33 +21,45 @@ import com.dron.sender.sequence.services.SequenceRunner;
 
 public class PluginTask extends Task<String> {
 
+	private static final Log LOG = LogFactory.getLog(PluginTask.class);
+
 	private Sequence sequence;
 
 	private ControllerStrategyContext context;
 
 	private RootController controller;
 
+	private final SequenceRunner sequenceService;
+
 	public PluginTask(Sequence sequence, ApplicationContext ctx) {
 		this.sequence = sequence;
 		this.controller = ctx.getBean(RootController.class);
 		this.context = ctx.getBean(ControllerStrategyContext.class);
+		this.sequenceService = new SequenceRunner(sequence);
 	}
 
 	@Override
-	protected String call() {
-		final SequenceRunner sequenceService = new SequenceRunner(sequence);
+	public boolean cancel(boolean mayInterruptIfRunning) {
+		sequenceService.cancel();
+		return super.cancel(mayInterruptIfRunning);
+	}
 
+	@Override
+	protected String call() {
 		try {
 			sequenceService.runPlugin(sequence.getSelectedPluginId());
 		} catch (DronSenderException e) {
+			ErrorMetrics.getInstance().onRunError();
 			if (e instanceof HandlerNotReadyException) {
-				System.out.println("Dron ERROR " + e.getMessage());
-			}
-			if (e instanceof RequestException) {
-				System.out.println("Request ERROR " + e.getMessage());
+				LOG.error("Dron ERROR " + e.getMessage());
+			} else if (e instanceof RequestException) {
+				LOG.error("Request ERROR " + e.getMessage());
+			} else {
+				LOG.error("Sequence ERROR " + e.getMessage());
 			}
 		} catch (Exception e) {
-			System.out.println("System ERROR " + e.getMessage());
+			ErrorMetrics.getInstance().onRunError();
+			LOG.error("System ERROR " + e.getMessage(), e);
 		} finally {
 			Platform.runLater(new Runnable() {
 				@Override
@@ -1,14 +1,20 @@
 package com.dron.sender.controllers.root.tasks;
 
+import java.util.concurrent.TimeUnit;
+
 import javafx.application.Platform;
 import javafx.concurrent.Task;
 
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
 import org.springframework.context.ApplicationContext;
 
+import com.dron.sender.config.AppProperties;
 import com.dron.sender.controllers.root.RootController;
 import com.dron.sender.exceptions.DronSenderException;
 import com.dron.sender.exceptions.HandlerNotReadyException;
 import com.dron.sender.exceptions.RequestException;
+import com.dron.sender.metrics.ErrorMetrics;
 import com.dron.sender.pattern.models.strategy.ControllerActionStrategy;
 import com.dron.sender.pattern.models.transformers.TransformKey;
 import com.dron.sender.pattern.services.strategies.ControllerStrategyContext;
@@ -18,33 +24,53 @@ import com.dron.sender.sequence.services.SequenceRunner;
 
 public class SequenceTask extends Task<String> {
 
+	private static final Log LOG = LogFactory.getLog(SequenceTask.class);
+
 	private Sequence sequence;
 
 	private ControllerStrategyContext context;
 
 	private RootController controller;
 
+	private AppProperties appProperties;
+
+	private final SequenceRunner sequenceRunner;
+
 	public SequenceTask(Sequence sequence, ApplicationContext ctx) {
 		this.sequence = sequence;
 		this.controller = ctx.getBean(RootController.class);
 		this.context = ctx.getBean(ControllerStrategyContext.class);
+		this.appProperties = ctx.getBean(AppProperties.class);
+		this.sequenceRunner = new SequenceRunner(sequence);
+	}
+
+	@Override
+	public boolean cancel(boolean mayInterruptIfRunning) {
+		sequenceRunner.cancel();
+		return super.cancel(mayInterruptIfRunning);
 	}
 
 	@Override
 	protected String call() {
-		final SequenceRunner sequenceRunner = new SequenceRunner(sequence);
+		if (appProperties.getRequestDuration() != null) {
+			sequenceRunner.setDeadlineMillis(TimeUnit.MINUTES
+					.toMillis(appProperties.getRequestDuration()));
+		}
 
 		try {
 			sequenceRunner.runSequence();
 		} catch (DronSenderException e) {
+			ErrorMetrics.getInstance().onRunError();
 			if (e instanceof HandlerNotReadyException) {
-				System.out.println("Dron ERROR " + e.getMessage());
-			}
-			if (e instanceof RequestException) {
-				System.out.println("Request ERROR " + e.getMessage());
+				LOG.error("Dron ERROR " + e.getMessage());
+			} else if (e instanceof RequestException) {
+				LOG.error("Request ERROR " + e.getMessage());
+			} else {
+				LOG.error("Sequence ERROR " + e.getMessage());
 			}
 		} catch (Exception e) {
-			System.out.println("System ERROR " + e.getMessage());
+			ErrorMetrics.getInstance().onRunError();
+			LOG.error("System ERROR " + e.getMessage(), e);
 		} finally {
 			Platform.runLater(new Runnable() {
 				@Override
@@ -0,0 +1,129 @@
+package com.dron.sender.jfr;
+
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.client.UnknownHttpStatusCodeException;
+
+import com.dron.sender.metrics.RequestMetrics;
+
+/**
+ * Flight Recorder events of sequence runs. A begin method returns the
+ * started event, or null if the event is disabled or the JVM has no Flight
+ * Recorder, the end method takes it back. An event is created only when it
+ * is enabled and nothing is computed for a null event, so disabled events
+ * cost a flag check and a null check.
+ * 
+ * Events are in the "Dron" category of a recording, like
+ * "jcmd <pid> JFR.start" or -XX:StartFlightRecording makes.
+ * 
+ * @author Koropatva
+ *
+ */
+public final class DronEvents {
+
+	private static final boolean AVAILABLE = isFlightRecorderAvailable();
+
+	private DronEvents() {
+	}
+
+	public static boolean isAvailable() {
+		return AVAILABLE;
+	}
+
+	public static Object beginSequence() {
+		return AVAILABLE ? EventSupport.beginSequence() : null;
+	}
+
+	public static void endSequence(Object event, String sequenceId,
+			String sequenceName, int plugins, int failedPlugins) {
+		if (event != null) {
+			EventSupport.commitSequence(event, sequenceId, sequenceName,
+					plugins, failedPlugins);
+		}
+	}
+
+	public static Object beginPlugin() {
+		return AVAILABLE ? EventSupport.beginPlugin() : null;
+	}
+
+	/**
+	 * Ends the plugin event with the response, or with the error if the
+	 * request failed
+	 */
+	public static void endPlugin(Object event, String pluginId,
+			String pluginName, HttpMethod method, String urlTemplate,
+			ResponseEntity<?> response, Throwable error) {
+		if (event == null) {
+			return;
+		}
+		long responseBytes = 0;
+		if (response != null && response.getBody() instanceof CharSequence) {
+			responseBytes = RequestMetrics.utf8Length((CharSequence) response
+					.getBody());
+		}
+		EventSupport.commitPlugin(event, pluginId, pluginName,
+				method == null ? null : method.name(), urlTemplate,
+				error == null, status(response, error), responseBytes,
+				error == null ? null : error.toString());
+	}
+
+	/**
+	 * @return raw status of the response or the error, 0 if there is none.
+	 *         Codes HttpStatus doesn't know come with
+	 *         UnknownHttpStatusCodeException, reading a status never fails.
+	 */
+	static int status(ResponseEntity<?> response, Throwable error) {
+		HttpStatus status = null;
+		if (response != null) {
+			status = response.getStatusCode();
+		} else if (error instanceof HttpStatusCodeException) {
+			status = ((HttpStatusCodeException) error).getStatusCode();
+		} else if (error instanceof UnknownHttpStatusCodeException) {
+			return ((UnknownHttpStatusCodeException) error).getRawStatusCode();
+		}
+		return status == null ? 0 : status.value();
+	}
+
+	public static Object beginRender() {
+		return AVAILABLE ? EventSupport.beginRender() : null;
+	}
+
+	public static void endRender(Object event, String pluginId, String url,
+			HttpEntity<?> entity) {
+		if (event == null) {
+			return;
+		}
+		long bodyBytes = 0;
+		if (entity != null && entity.getBody() instanceof CharSequence) {
+			bodyBytes = RequestMetrics.utf8Length((CharSequence) entity
+					.getBody());
+		}
+		EventSupport.commitRender(event, pluginId,
+				url == null ? 0 : url.length(), bodyBytes);
+	}
+
+	public static Object beginExtraction() {
+		return AVAILABLE ? EventSupport.beginExtraction() : null;
+	}
+
+	public static void endExtraction(Object event, int futureParams,
+			int values, String response) {
+		if (event != null) {
+			EventSupport.commitExtraction(event, futureParams, values,
+					response == null ? 0 : RequestMetrics.utf8Length(response));
+		}
+	}
+
+	private static boolean isFlightRecorderAvailable() {
+		try {
+			Class.forName("jdk.jfr.Event", false,
+					DronEvents.class.getClassLoader());
+			return true;
+		} catch (ClassNotFoundException | LinkageError e) {
+			return false;
+		}
+	}
+}
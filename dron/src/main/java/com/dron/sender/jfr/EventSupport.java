@@ -0,0 +1,101 @@
+package com.dron.sender.jfr;
+
+/**
+ * Creates and commits the events. Only this class and the events refer to
+ * jdk.jfr, it is loaded once Flight Recorder is known to be available.
+ * 
+ * @author Koropatva
+ *
+ */
+final class EventSupport {
+
+	// Only asked if their type is enabled, so disabled events are not
+	// allocated
+	private static final SequenceEvent SEQUENCE = new SequenceEvent();
+
+	private static final PluginEvent PLUGIN = new PluginEvent();
+
+	private static final TemplateRenderEvent RENDER = new TemplateRenderEvent();
+
+	private static final ParamExtractionEvent EXTRACTION = new ParamExtractionEvent();
+
+	private EventSupport() {
+	}
+
+	private static Object begin(jdk.jfr.Event event) {
+		event.begin();
+		return event;
+	}
+
+	static void commitSequence(Object recorded, String sequenceId,
+			String sequenceName, int plugins, int failedPlugins) {
+		SequenceEvent event = (SequenceEvent) recorded;
+		event.end();
+		if (event.shouldCommit()) {
+			event.sequenceId = sequenceId;
+			event.sequenceName = sequenceName;
+			event.plugins = plugins;
+			event.failedPlugins = failedPlugins;
+			event.commit();
+		}
+	}
+
+	static void commitPlugin(Object recorded, String pluginId,
+			String pluginName, String method, String urlTemplate,
+			boolean success, int status, long responseBytes, String error) {
+		PluginEvent event = (PluginEvent) recorded;
+		event.end();
+		if (event.shouldCommit()) {
+			event.pluginId = pluginId;
+			event.pluginName = pluginName;
+			event.method = method;
+			event.urlTemplate = urlTemplate;
+			event.success = success;
+			event.status = status;
+			event.responseBytes = responseBytes;
+			event.error = error;
+			event.commit();
+		}
+	}
+
+	static void commitRender(Object recorded, String pluginId,
+			int urlLength, long bodyBytes) {
+		TemplateRenderEvent event = (TemplateRenderEvent) recorded;
+		event.end();
+		if (event.shouldCommit()) {
+			event.pluginId = pluginId;
+			event.urlLength = urlLength;
+			event.bodyBytes = bodyBytes;
+			event.commit();
+		}
+	}
+
+	static void commitExtraction(Object recorded, int futureParams,
+			int values, long responseBytes) {
+		ParamExtractionEvent event = (ParamExtractionEvent) recorded;
+		event.end();
+		if (event.shouldCommit()) {
+			event.futureParams = futureParams;
+			event.values = values;
+			event.responseBytes = responseBytes;
+			event.commit();
+		}
+	}
+
+	static Object beginSequence() {
+		return SEQUENCE.isEnabled() ? begin(new SequenceEvent()) : null;
+	}
+
+	static Object beginPlugin() {
+		return PLUGIN.isEnabled() ? begin(new PluginEvent()) : null;
+	}
+
+	static Object beginRender() {
+		return RENDER.isEnabled() ? begin(new TemplateRenderEvent()) : null;
+	}
+
+	static Object beginExtraction() {
+		return EXTRACTION.isEnabled() ? begin(new ParamExtractionEvent())
+				: null;
+	}
+}
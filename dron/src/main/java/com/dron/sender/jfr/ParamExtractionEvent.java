@@ -0,0 +1,32 @@
+package com.dron.sender.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Extraction of future param values from a response.
+ * 
+ * @author Koropatva
+ *
+ */
+@Name("com.dron.sender.ParamExtraction")
+@Label("Param Extraction")
+@Category("Dron")
+@Description("Values of future params read from a response")
+@StackTrace(false)
+class ParamExtractionEvent extends jdk.jfr.Event {
+
+	@Label("Future Params")
+	int futureParams;
+
+	@Label("Values")
+	int values;
+
+	@Label("Response Size")
+	@DataAmount
+	long responseBytes;
+}
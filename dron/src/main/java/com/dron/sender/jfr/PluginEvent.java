@@ -0,0 +1,48 @@
+package com.dron.sender.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Request of a plugin, from filling the request to reading the response.
+ * 
+ * @author Koropatva
+ *
+ */
+@Name("com.dron.sender.Plugin")
+@Label("Plugin")
+@Category("Dron")
+@Description("Request sent for a plugin")
+@StackTrace(false)
+class PluginEvent extends jdk.jfr.Event {
+
+	@Label("Plugin Id")
+	String pluginId;
+
+	@Label("Plugin Name")
+	String pluginName;
+
+	@Label("Method")
+	String method;
+
+	@Label("URL Template")
+	String urlTemplate;
+
+	@Label("Success")
+	boolean success;
+
+	@Label("Status")
+	@Description("HTTP status, 0 if no response was received")
+	int status;
+
+	@Label("Response Size")
+	@DataAmount
+	long responseBytes;
+
+	@Label("Error")
+	String error;
+}
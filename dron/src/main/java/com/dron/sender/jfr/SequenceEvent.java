@@ -0,0 +1,33 @@
+package com.dron.sender.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Run of all plugins of a sequence.
+ * 
+ * @author Koropatva
+ *
+ */
+@Name("com.dron.sender.Sequence")
+@Label("Sequence")
+@Category("Dron")
+@Description("Run of all plugins of a sequence")
+@StackTrace(false)
+class SequenceEvent extends jdk.jfr.Event {
+
+	@Label("Sequence Id")
+	String sequenceId;
+
+	@Label("Sequence Name")
+	String sequenceName;
+
+	@Label("Plugins")
+	int plugins;
+
+	@Label("Failed Plugins")
+	int failedPlugins;
+}
@@ -0,0 +1,32 @@
+package com.dron.sender.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Filling params and random values into the url and body of a plugin.
+ * 
+ * @author Koropatva
+ *
+ */
+@Name("com.dron.sender.TemplateRender")
+@Label("Template Render")
+@Category("Dron")
+@Description("Url and body of a plugin filled with params")
+@StackTrace(false)
+class TemplateRenderEvent extends jdk.jfr.Event {
+
+	@Label("Plugin Id")
+	String pluginId;
+
+	@Label("URL Length")
+	int urlLength;
+
+	@Label("Body Size")
+	@DataAmount
+	long bodyBytes;
+}
@@ -0,0 +1,197 @@
+package com.dron.sender.load;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import com.dron.sender.exceptions.DronSenderException;
+import com.dron.sender.metrics.ErrorMetrics;
+import com.dron.sender.sequence.enums.TransportType;
+import com.dron.sender.sequence.models.PluginResult;
+import com.dron.sender.sequence.models.Sequence;
+import com.dron.sender.sequence.models.SequenceDefinition;
+import com.dron.sender.sequence.models.SequenceRun;
+import com.dron.sender.sequence.services.SequenceDefinitionRunner;
+import com.dron.sender.sequence.utils.SeededRandom;
+
+/**
+ * Open workload model: sequence iterations are started at the rate of the
+ * profile whether previous iterations are finished or not. Iterations are
+ * sent through the non-blocking client, the number of iterations in flight
+ * is limited. Latency is measured from the time an iteration should have
+ * started, so waiting for a free slot shows up in the latency instead of
+ * slowing the arrivals down. Every iteration is recorded, failed ones too.
+ * 
+ * @author Koropatva
+ *
+ */
+public class ArrivalRateScheduler {
+
+	private static final Log LOG = LogFactory.getLog(ArrivalRateScheduler.class);
+
+	// Iterations started later than this are counted as late
+	private static final long LATE_START_NANOS = TimeUnit.MILLISECONDS
+			.toNanos(1);
+
+	private final Sequence sequence;
+
+	private final RateProfile profile;
+
+	private final int maxInFlight;
+
+	// Random values aren't reproducible if null
+	private Long seed;
+
+	// Time an iteration may take, 0 if it is not limited
+	private long sequenceTimeoutMillis;
+
+	// Default transport of the request runner if null
+	private TransportType transportType;
+
+	private volatile boolean stopped;
+
+	// Wakes the scheduler waiting for the next arrival
+	private final CountDownLatch stopping = new CountDownLatch(1);
+
+	/**
+	 * Requests in flight are limited by connection limits of TransportConfig
+	 * too, they should be raised for high limits.
+	 */
+	public ArrivalRateScheduler(Sequence sequence, RateProfile profile,
+			int maxInFlight) {
+		this.sequence = sequence;
+		this.profile = profile;
+		this.maxInFlight = Math.max(1, maxInFlight);
+	}
+
+	public Long getSeed() {
+		return seed;
+	}
+
+	/**
+	 * With a seed iteration number N gets the random stream of (seed, 0, N)
+	 */
+	public void setSeed(Long seed) {
+		this.seed = seed;
+	}
+
+	public long getSequenceTimeoutMillis() {
+		return sequenceTimeoutMillis;
+	}
+
+	/**
+	 * Limits an iteration, requests in flight at the deadline are cancelled
+	 * and the rest plugins fail without being sent
+	 */
+	public void setSequenceTimeoutMillis(long sequenceTimeoutMillis) {
+		this.sequenceTimeoutMillis = sequenceTimeoutMillis;
+	}
+
+	public TransportType getTransportType() {
+		return transportType;
+	}
+
+	/**
+	 * Chooses the HTTP client of the runs, null means the default transport
+	 * of RequestRunner
+	 */
+	public void setTransportType(TransportType transportType) {
+		this.transportType = transportType;
+	}
+
+	/**
+	 * Starts iterations until the profile is over and waits for the started
+	 * ones to finish.
+	 */
+	public LoadResult run() throws InterruptedException {
+		LoadResult result = new LoadResult();
+		SequenceDefinition definition;
+		try {
+			definition = SequenceDefinition.compile(sequence);
+		} catch (DronSenderException e) {
+			ErrorMetrics.getInstance().onRunError();
+			LOG.error("Sequence can't be run: " + e.getMessage());
+			result.addError();
+			return result;
+		}
+
+		SequenceDefinitionRunner runner = SequenceDefinitionRunner
+				.getInstance();
+		Semaphore inFlight = new Semaphore(maxInFlight);
+		long start = System.nanoTime();
+		long arrival = 0;
+		try {
+			while (!stopped) {
+				// Arrival times are kept as double, so high rates don't round
+				// down. Stages with zero rate are waited out at once
+				double arrivalMillis = profile.getArrivalMillis(arrival);
+				if (arrivalMillis < 0) {
+					break;
+				}
+
+				long intendedStart = start + (long) (arrivalMillis * 1e6);
+				long wait = intendedStart - System.nanoTime();
+				if (wait > 0 && stopping.await(wait, TimeUnit.NANOSECONDS)) {
+					break;
+				}
+				inFlight.acquire();
+				long actualStart = System.nanoTime();
+				if (actualStart - intendedStart > LATE_START_NANOS) {
+					result.addLateStart();
+				}
+
+				SequenceRun run = new SequenceRun(definition);
+				run.setDeadlineMillis(sequenceTimeoutMillis);
+				run.setTransportType(transportType);
+				if (seed != null) {
+					run.setRandom(SeededRandom.forIteration(seed, 0, arrival));
+				}
+				runner.runAsync(run, result.getSequenceLatency())
+						.whenComplete((finished, e) -> {
+							// Failed iterations are the slowest ones often, they
+							// are recorded too and counted as errors
+							result.addLatency(System.nanoTime() - intendedStart);
+							if (e != null) {
+								result.addError();
+							} else {
+								addIteration(result, finished);
+							}
+							inFlight.release();
+						});
+
+				arrival++;
+			}
+			// All permits are free when started iterations are finished
+			inFlight.acquire(maxInFlight);
+			inFlight.release(maxInFlight);
+		} catch (InterruptedException e) {
+			stop();
+			throw e;
+		} finally {
+			result.setElapsedMillis(TimeUnit.NANOSECONDS.toMillis(System
+					.nanoTime() - start));
+		}
+		return result;
+	}
+
+	/**
+	 * No more iterations are started, started ones are finished.
+	 */
+	public void stop() {
+		stopped = true;
+		stopping.countDown();
+	}
+
+	private void addIteration(LoadResult result, SequenceRun run) {
+		int failed = 0;
+		for (PluginResult pluginResult : run.getResults()) {
+			if (!pluginResult.isSuccess()) {
+				failed++;
+			}
+		}
+		result.addIteration(run.getResults().size(), failed);
+	}
+}
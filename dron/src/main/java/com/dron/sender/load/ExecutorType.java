@@ -0,0 +1,12 @@
+package com.dron.sender.load;
+
+public enum ExecutorType {
+	/**
+	 * One platform thread per virtual user
+	 */
+	PLATFORM,
+	/**
+	 * One JDK virtual thread per virtual user, needs Java 21 or newer
+	 */
+	VIRTUAL;
+}
@@ -0,0 +1,128 @@
+package com.dron.sender.load;
+
+import com.dron.sender.sequence.enums.TransportType;
+
+/**
+ * Describes how a sequence is run as a load scenario: number of virtual
+ * users, how fast they are started and when they stop. A user stops when
+ * it made the number of iterations or when the duration is over, whichever
+ * comes first; zero means no limit.
+ * 
+ * @author Koropatva
+ *
+ */
+public class LoadProfile {
+
+	private int virtualUsers = 1;
+
+	// Users are started evenly during the ramp up
+	private long rampUpMillis;
+
+	private long durationMillis;
+
+	private int iterations = 1;
+
+	private ExecutorType executorType = ExecutorType.PLATFORM;
+
+	// Random values aren't reproducible if null
+	private Long seed;
+
+	// Time an iteration may take, 0 if it is not limited
+	private long sequenceTimeoutMillis;
+
+	// Default transport of the request runner if null
+	private TransportType transportType;
+
+	public LoadProfile() {
+	}
+
+	public LoadProfile(final int virtualUsers, final long rampUpMillis,
+			final long durationMillis, final int iterations) {
+		this.virtualUsers = virtualUsers;
+		this.rampUpMillis = rampUpMillis;
+		this.durationMillis = durationMillis;
+		this.iterations = iterations;
+	}
+
+	public int getVirtualUsers() {
+		return virtualUsers;
+	}
+
+	public void setVirtualUsers(int virtualUsers) {
+		this.virtualUsers = virtualUsers;
+	}
+
+	public long getRampUpMillis() {
+		return rampUpMillis;
+	}
+
+	public void setRampUpMillis(long rampUpMillis) {
+		this.rampUpMillis = rampUpMillis;
+	}
+
+	public long getDurationMillis() {
+		return durationMillis;
+	}
+
+	public void setDurationMillis(long durationMillis) {
+		this.durationMillis = durationMillis;
+	}
+
+	public int getIterations() {
+		return iterations;
+	}
+
+	public void setIterations(int iterations) {
+		this.iterations = iterations;
+	}
+
+	public ExecutorType getExecutorType() {
+		return executorType;
+	}
+
+	/**
+	 * Virtual threads let one box run tens of thousands of users over the
+	 * blocking request path. Connection limits of TransportConfig should be
+	 * raised accordingly, otherwise users wait for a pooled connection.
+	 */
+	public void setExecutorType(ExecutorType executorType) {
+		this.executorType = executorType;
+	}
+
+	public Long getSeed() {
+		return seed;
+	}
+
+	/**
+	 * With a seed every iteration of a user gets its own random stream
+	 * derived from (seed, user, iteration), so a run can be repeated with the
+	 * same random values. Values aren't taken from pre-generated pools then.
+	 */
+	public void setSeed(Long seed) {
+		this.seed = seed;
+	}
+
+	public long getSequenceTimeoutMillis() {
+		return sequenceTimeoutMillis;
+	}
+
+	/**
+	 * Limits an iteration, requests in flight at the deadline are cancelled
+	 * and the rest plugins fail without being sent
+	 */
+	public void setSequenceTimeoutMillis(long sequenceTimeoutMillis) {
+		this.sequenceTimeoutMillis = sequenceTimeoutMillis;
+	}
+
+	public TransportType getTransportType() {
+		return transportType;
+	}
+
+	/**
+	 * Chooses the HTTP client of the runs, null means the default transport
+	 * of RequestRunner
+	 */
+	public void setTransportType(TransportType transportType) {
+		this.transportType = transportType;
+	}
+}
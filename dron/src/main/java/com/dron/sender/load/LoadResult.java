@@ -0,0 +1,138 @@
+package com.dron.sender.load;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.dron.sender.metrics.LatencyHistogram;
+import com.dron.sender.metrics.SequenceLatency;
+
+/**
+ * Counters of a load run, updated by all virtual users.
+ * 
+ * @author Koropatva
+ *
+ */
+public class LoadResult {
+
+	private final AtomicLong iterations = new AtomicLong();
+
+	private final AtomicLong requests = new AtomicLong();
+
+	private final AtomicLong failedRequests = new AtomicLong();
+
+	private final AtomicLong errors = new AtomicLong();
+
+	// Iteration time from the moment it should have started
+	private final LatencyHistogram latency = new LatencyHistogram();
+
+	// Times of iterations from the moment they really started and of plugins
+	private final SequenceLatency sequenceLatency = new SequenceLatency();
+
+	private final AtomicLong lateStarts = new AtomicLong();
+
+	private volatile long elapsedMillis;
+
+	void addIteration(int sentRequests, int failed) {
+		iterations.incrementAndGet();
+		requests.addAndGet(sentRequests);
+		failedRequests.addAndGet(failed);
+	}
+
+	void addError() {
+		errors.incrementAndGet();
+	}
+
+	void addLatency(long nanos) {
+		latency.record(nanos);
+	}
+
+	void addLateStart() {
+		lateStarts.incrementAndGet();
+	}
+
+	void setElapsedMillis(long elapsedMillis) {
+		this.elapsedMillis = elapsedMillis;
+	}
+
+	public long getIterations() {
+		return iterations.get();
+	}
+
+	public long getRequests() {
+		return requests.get();
+	}
+
+	public long getFailedRequests() {
+		return failedRequests.get();
+	}
+
+	/**
+	 * @return number of sequence errors, like a sequence that can't be
+	 *         compiled or an iteration that failed unexpectedly
+	 */
+	public long getErrors() {
+		return errors.get();
+	}
+
+	public long getElapsedMillis() {
+		return elapsedMillis;
+	}
+
+	/**
+	 * @return mean iteration time measured from the moment the iteration
+	 *         should have started, so time waited for a free slot is counted
+	 */
+	public double getMeanLatencyMillis() {
+		return latency.getMeanNanos() / 1e6;
+	}
+
+	public double getMaxLatencyMillis() {
+		return latency.getMaxNanos() / 1e6;
+	}
+
+	/**
+	 * @return histogram of iteration times measured from the moment the
+	 *         iterations should have started
+	 */
+	public LatencyHistogram getLatency() {
+		return latency;
+	}
+
+	/**
+	 * @return mean iteration time measured from the moment the iteration
+	 *         really started
+	 */
+	public double getMeanServiceTimeMillis() {
+		return sequenceLatency.getSequence().getMeanNanos() / 1e6;
+	}
+
+	/**
+	 * @return histograms of iteration times from the moment they really
+	 *         started and of every plugin
+	 */
+	public SequenceLatency getSequenceLatency() {
+		return sequenceLatency;
+	}
+
+	/**
+	 * @return number of iterations started later than scheduled, because
+	 *         the in-flight limit was reached or the scheduler fell behind
+	 */
+	public long getLateStarts() {
+		return lateStarts.get();
+	}
+
+	public double getRequestsPerSecond() {
+		return elapsedMillis == 0 ? 0 : getRequests() * 1000.0 / elapsedMillis;
+	}
+
+	@Override
+	public String toString() {
+		return String.format(
+				"Iterations: %d; requests: %d; failed: %d; errors: %d; "
+						+ "elapsed: %d ms; %.1f requests/s; "
+						+ "late starts: %d%nLatency: %s%n%s", getIterations(),
+				getRequests(), getFailedRequests(), getErrors(),
+				elapsedMillis, getRequestsPerSecond(), getLateStarts(),
+				latency, sequenceLatency);
+	}
+}
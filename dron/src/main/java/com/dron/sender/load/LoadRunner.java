@@ -0,0 +1,142 @@
+package com.dron.sender.load;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import com.dron.sender.exceptions.DronSenderException;
+import com.dron.sender.metrics.ErrorMetrics;
+import com.dron.sender.sequence.models.PluginResult;
+import com.dron.sender.sequence.models.Sequence;
+import com.dron.sender.sequence.models.SequenceDefinition;
+import com.dron.sender.sequence.models.SequenceRun;
+import com.dron.sender.sequence.services.SequenceDefinitionRunner;
+import com.dron.sender.sequence.utils.SeededRandom;
+
+/**
+ * Runs one sequence definition as a number of concurrent virtual users. The
+ * sequence is compiled once and shared, each user keeps only its own run
+ * state. Params filled from responses are kept per user between iterations,
+ * random values and array params are filled again in every iteration.
+ * 
+ * @author Koropatva
+ *
+ */
+public class LoadRunner {
+
+	private static final Log LOG = LogFactory.getLog(LoadRunner.class);
+
+	private final Sequence sequence;
+
+	private final LoadProfile profile;
+
+	private volatile boolean stopped;
+
+	public LoadRunner(Sequence sequence, LoadProfile profile) {
+		this.sequence = sequence;
+		this.profile = profile;
+	}
+
+	/**
+	 * Runs the load and waits until all virtual users are finished.
+	 */
+	public LoadResult run() throws InterruptedException {
+		LoadResult result = new LoadResult();
+		SequenceDefinition definition;
+		try {
+			definition = SequenceDefinition.compile(sequence);
+		} catch (DronSenderException e) {
+			ErrorMetrics.getInstance().onRunError();
+			LOG.error("Sequence can't be run: " + e.getMessage());
+			result.addError();
+			return result;
+		}
+
+		int users = Math.max(1, profile.getVirtualUsers());
+		ExecutorService executor = VirtualUserExecutors.newExecutor(
+				profile.getExecutorType(), users);
+
+		long start = System.currentTimeMillis();
+		long deadline = profile.getDurationMillis() > 0 ? start
+				+ profile.getDurationMillis() : Long.MAX_VALUE;
+		for (int user = 0; user < users; user++) {
+			long startDelay = profile.getRampUpMillis() * user / users;
+			int userNumber = user;
+			SequenceRun run = new SequenceRun(definition);
+			run.setDeadlineMillis(profile.getSequenceTimeoutMillis());
+			run.setTransportType(profile.getTransportType());
+			executor.execute(() -> runUser(userNumber, run, start
+					+ startDelay, deadline, result));
+		}
+		executor.shutdown();
+		try {
+			while (!executor.awaitTermination(1, TimeUnit.SECONDS)) {
+				// Wait for the users
+			}
+		} catch (InterruptedException e) {
+			stop();
+			executor.shutdownNow();
+			throw e;
+		} finally {
+			result.setElapsedMillis(System.currentTimeMillis() - start);
+		}
+		return result;
+	}
+
+	/**
+	 * Virtual users finish their current iteration and stop.
+	 */
+	public void stop() {
+		stopped = true;
+	}
+
+	private void runUser(int user, SequenceRun run, long startTime,
+			long deadline, LoadResult result) {
+		try {
+			long delay = startTime - System.currentTimeMillis();
+			if (delay > 0) {
+				Thread.sleep(delay);
+			}
+		} catch (InterruptedException e) {
+			return;
+		}
+
+		SequenceDefinitionRunner runner = SequenceDefinitionRunner
+				.getInstance();
+		int iteration = 0;
+		while (!stopped
+				&& (profile.getIterations() <= 0 || iteration < profile
+						.getIterations())
+				&& System.currentTimeMillis() < deadline) {
+			// Random values, array params and results are per iteration, so
+			// the iteration is reproducible and the state doesn't grow
+			run.reset();
+			if (profile.getSeed() != null) {
+				run.setRandom(SeededRandom.forIteration(profile.getSeed(),
+						user, iteration));
+			}
+			long iterationStart = System.nanoTime();
+			try {
+				runner.run(run, result.getSequenceLatency());
+				int failed = 0;
+				for (PluginResult pluginResult : run.getResults()) {
+					if (!pluginResult.isSuccess()) {
+						failed++;
+					}
+				}
+				result.addIteration(run.getResults().size(), failed);
+			} catch (RuntimeException e) {
+				ErrorMetrics.getInstance().onRunError();
+				LOG.error("Iteration failed: " + e.getMessage(), e);
+				result.addError();
+			} finally {
+				// Closed model: next iteration starts when this one ends.
+				// Every iteration is recorded, failed ones too
+				result.addLatency(System.nanoTime() - iterationStart);
+			}
+			iteration++;
+		}
+	}
+}
@@ -0,0 +1,148 @@
+package com.dron.sender.load;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Target arrival rate of sequence iterations over time, made of stages run
+ * one after another. Rate of a stage changes linearly from its start rate to
+ * its end rate, so a stage with equal rates keeps a constant rate.
+ * 
+ * @author Koropatva
+ *
+ */
+public class RateProfile {
+
+	private final List<Stage> stages = new ArrayList<Stage>();
+
+	private long durationMillis;
+
+	private static final class Stage {
+
+		private final double startRate;
+
+		private final double endRate;
+
+		private final long durationMillis;
+
+		private Stage(double startRate, double endRate, long durationMillis) {
+			this.startRate = startRate;
+			this.endRate = endRate;
+			this.durationMillis = durationMillis;
+		}
+
+		/**
+		 * @return iterations started during the whole stage
+		 */
+		private double getArrivals() {
+			return (startRate + endRate) / 2 * durationMillis / 1000;
+		}
+
+		/**
+		 * @return seconds from the stage start until the number of started
+		 *         iterations is reached, it is less than the arrivals of the
+		 *         stage
+		 */
+		private double getArrivalSeconds(double arrivals) {
+			if (arrivals <= 0) {
+				return 0;
+			}
+			// Started iterations grow as startRate * t + change * t^2, the
+			// root is taken in the form that doesn't lose precision for a
+			// rate going down
+			double change = (endRate - startRate) / 2 / durationMillis * 1000;
+			return 2 * arrivals
+					/ (startRate + Math.sqrt(Math.max(0, startRate * startRate
+							+ 4 * change * arrivals)));
+		}
+	}
+
+	/**
+	 * @return profile keeping the rate during the duration
+	 */
+	public static RateProfile constant(double ratePerSecond,
+			long durationMillis) {
+		return new RateProfile().addStage(ratePerSecond, ratePerSecond,
+				durationMillis);
+	}
+
+	/**
+	 * @return profile changing the rate linearly during the duration
+	 */
+	public static RateProfile ramp(double startRatePerSecond,
+			double endRatePerSecond, long durationMillis) {
+		return new RateProfile().addStage(startRatePerSecond,
+				endRatePerSecond, durationMillis);
+	}
+
+	/**
+	 * @return profile keeping each of the rates during the step duration
+	 */
+	public static RateProfile step(long stepMillis, double... ratesPerSecond) {
+		RateProfile profile = new RateProfile();
+		for (double rate : ratesPerSecond) {
+			profile.addStage(rate, rate, stepMillis);
+		}
+		return profile;
+	}
+
+	public RateProfile addStage(double startRatePerSecond,
+			double endRatePerSecond, long durationMillis) {
+		if (startRatePerSecond < 0 || endRatePerSecond < 0
+				|| durationMillis < 0) {
+			throw new IllegalArgumentException(
+					"Rate and duration can't be negative");
+		}
+		stages.add(new Stage(startRatePerSecond, endRatePerSecond,
+				durationMillis));
+		this.durationMillis += durationMillis;
+		return this;
+	}
+
+	public long getDurationMillis() {
+		return durationMillis;
+	}
+
+	/**
+	 * @return target iterations per second at the time from the start, zero
+	 *         after the last stage
+	 */
+	public double getRate(double elapsedMillis) {
+		double stageStart = 0;
+		for (Stage stage : stages) {
+			if (elapsedMillis < stageStart + stage.durationMillis) {
+				double progress = (elapsedMillis - stageStart)
+						/ stage.durationMillis;
+				return stage.startRate + (stage.endRate - stage.startRate)
+						* progress;
+			}
+			stageStart += stage.durationMillis;
+		}
+		return 0;
+	}
+
+	/**
+	 * Arrival times follow the number of iterations the rate adds up to, so a
+	 * rate starting from zero doesn't stretch the first gap and stages with
+	 * zero rate are skipped.
+	 * 
+	 * @return time from the start when the number of started iterations
+	 *         reaches the arrivals, -1 if it is not reached before the end
+	 */
+	public double getArrivalMillis(double arrivals) {
+		double stageStart = 0;
+		double stageArrivals = 0;
+		for (Stage stage : stages) {
+			double arrivalsAfter = stageArrivals + stage.getArrivals();
+			if (arrivals < arrivalsAfter) {
+				return stageStart
+						+ Math.min(stage.durationMillis, stage
+								.getArrivalSeconds(arrivals - stageArrivals)
+								* 1000);
+			}
+			stageStart += stage.durationMillis;
+			stageArrivals = arrivalsAfter;
+		}
+		return -1;
+	}
+}
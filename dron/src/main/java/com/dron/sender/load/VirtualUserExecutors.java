@@ -0,0 +1,60 @@
+package com.dron.sender.load;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * Creates executors that run virtual users. Virtual threads are looked up
+ * reflectively, so the project still builds and runs on Java 8.
+ * 
+ * @author Koropatva
+ *
+ */
+public class VirtualUserExecutors {
+
+	private static final Log LOG = LogFactory.getLog(VirtualUserExecutors.class);
+
+	private static final String THREAD_PREFIX = "dron-virtual-user-";
+
+	private static final Method NEW_VIRTUAL_THREAD_EXECUTOR = findVirtualThreadExecutor();
+
+	private VirtualUserExecutors() {
+	}
+
+	public static boolean isVirtualThreadSupported() {
+		return NEW_VIRTUAL_THREAD_EXECUTOR != null;
+	}
+
+	public static ExecutorService newExecutor(ExecutorType type, int users) {
+		if (type == ExecutorType.VIRTUAL) {
+			if (isVirtualThreadSupported()) {
+				try {
+					return (ExecutorService) NEW_VIRTUAL_THREAD_EXECUTOR
+							.invoke(null);
+				} catch (ReflectiveOperationException e) {
+					LOG.warn("Virtual threads can't be created: "
+							+ e.getMessage());
+				}
+			}
+			LOG.warn("Virtual threads aren't supported by "
+					+ System.getProperty("java.version")
+					+ ", platform threads are used");
+		}
+		AtomicInteger threadNumber = new AtomicInteger();
+		return Executors.newFixedThreadPool(users, runnable -> new Thread(
+				runnable, THREAD_PREFIX + threadNumber.incrementAndGet()));
+	}
+
+	private static Method findVirtualThreadExecutor() {
+		try {
+			return Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+		} catch (NoSuchMethodException e) {
+			return null;
+		}
+	}
+}
@@ -0,0 +1,27 @@
+package com.dron.sender.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counter that only grows. Threads add to own cells, so counting from many
+ * threads doesn't contend.
+ * 
+ * @author Koropatva
+ *
+ */
+public class Counter {
+
+	private final LongAdder value = new LongAdder();
+
+	public void increment() {
+		value.increment();
+	}
+
+	public void add(long amount) {
+		value.add(amount);
+	}
+
+	public long getValue() {
+		return value.sum();
+	}
+}
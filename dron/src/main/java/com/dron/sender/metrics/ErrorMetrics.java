@@ -0,0 +1,67 @@
+package com.dron.sender.metrics;
+
+/**
+ * Counters of failures that are not failed requests: runs that failed with
+ * an error, future params with a wrong dependence and responses params
+ * couldn't be extracted from. Failed requests are counted by RequestMetrics.
+ *
+ * @author Koropatva
+ *
+ */
+public class ErrorMetrics {
+
+	private static volatile ErrorMetrics INSTANCE;
+
+	private final Counter runErrors;
+
+	private final Counter paramErrors;
+
+	private final Counter extractionErrors;
+
+	public ErrorMetrics(MetricsRegistry registry) {
+		runErrors = registry.counter("dron_run_errors_total",
+				"Sequence and plugin runs failed with an error");
+		paramErrors = registry.counter("dron_param_errors_total",
+				"Future params with a wrong dependence");
+		extractionErrors = registry.counter("dron_extraction_errors_total",
+				"Responses future params couldn't be extracted from");
+	}
+
+	/**
+	 * @return counters registered in the registry of the application
+	 */
+	public static ErrorMetrics getInstance() {
+		if (INSTANCE == null) {
+			synchronized (ErrorMetrics.class) {
+				if (INSTANCE == null) {
+					INSTANCE = new ErrorMetrics(MetricsRegistry.getInstance());
+				}
+			}
+		}
+		return INSTANCE;
+	}
+
+	public void onRunError() {
+		runErrors.increment();
+	}
+
+	public void onParamError() {
+		paramErrors.increment();
+	}
+
+	public void onExtractionError() {
+		extractionErrors.increment();
+	}
+
+	public long getRunErrors() {
+		return runErrors.getValue();
+	}
+
+	public long getParamErrors() {
+		return paramErrors.getValue();
+	}
+
+	public long getExtractionErrors() {
+		return extractionErrors.getValue();
+	}
+}
@@ -0,0 +1,13 @@
+package com.dron.sender.metrics;
+
+/**
+ * Current value of something, read when metrics are exported.
+ * 
+ * @author Koropatva
+ *
+ */
+@FunctionalInterface
+public interface Gauge {
+
+	double getValue();
+}
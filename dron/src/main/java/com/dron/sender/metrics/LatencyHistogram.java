@@ -0,0 +1,134 @@
+package com.dron.sender.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Fixed-size histogram of latencies in nanoseconds. Values below 32 ns have
+ * own buckets, every power of two above is split into 16 buckets, so a
+ * bucket is at most about 6% wide and the histogram never grows. Recording
+ * is lock-free and can be done from any number of threads.
+ * 
+ * @author Koropatva
+ *
+ */
+public class LatencyHistogram {
+
+	private static final int LINEAR_BUCKETS = 32;
+
+	private static final int SUB_BUCKET_BITS = 4;
+
+	private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+	// Highest bit of a positive long is 62
+	private static final int BUCKETS = LINEAR_BUCKETS + (62 - 5 + 1)
+			* SUB_BUCKETS;
+
+	private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+	private final AtomicLong count = new AtomicLong();
+
+	private final AtomicLong sum = new AtomicLong();
+
+	private final AtomicLong max = new AtomicLong();
+
+	public void record(long nanos) {
+		long value = Math.max(0, nanos);
+		counts.incrementAndGet(bucket(value));
+		count.incrementAndGet();
+		sum.addAndGet(value);
+		max.accumulateAndGet(value, Math::max);
+	}
+
+	/**
+	 * Adds values of the other histogram to this one
+	 */
+	public void merge(LatencyHistogram other) {
+		for (int i = 0; i < BUCKETS; i++) {
+			long bucketCount = other.counts.get(i);
+			if (bucketCount > 0) {
+				counts.addAndGet(i, bucketCount);
+			}
+		}
+		count.addAndGet(other.count.get());
+		sum.addAndGet(other.sum.get());
+		max.accumulateAndGet(other.max.get(), Math::max);
+	}
+
+	public long getCount() {
+		return count.get();
+	}
+
+	public long getMaxNanos() {
+		return max.get();
+	}
+
+	public long getSumNanos() {
+		return sum.get();
+	}
+
+	public double getMeanNanos() {
+		long total = count.get();
+		return total == 0 ? 0 : (double) sum.get() / total;
+	}
+
+	/**
+	 * @return value in nanoseconds not exceeded by the percentile of recorded
+	 *         values, like 99.9, within the bucket width
+	 */
+	public long getValueAtPercentile(double percentile) {
+		long total = count.get();
+		if (total == 0) {
+			return 0;
+		}
+		long rank = Math.max(1,
+				(long) Math.ceil(percentile / 100.0 * total));
+		long seen = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			seen += counts.get(i);
+			if (seen >= rank) {
+				return Math.min(highestValue(i), max.get());
+			}
+		}
+		return max.get();
+	}
+
+	/**
+	 * @return p50, p90, p99, p99.9 and max in milliseconds
+	 */
+	@Override
+	public String toString() {
+		return String.format(
+				"count: %d; p50: %.2f ms; p90: %.2f ms; p99: %.2f ms; "
+						+ "p99.9: %.2f ms; max: %.2f ms", getCount(),
+				millis(getValueAtPercentile(50)),
+				millis(getValueAtPercentile(90)),
+				millis(getValueAtPercentile(99)),
+				millis(getValueAtPercentile(99.9)), millis(getMaxNanos()));
+	}
+
+	static int bucket(long value) {
+		if (value < LINEAR_BUCKETS) {
+			return (int) value;
+		}
+		int highestBit = 63 - Long.numberOfLeadingZeros(value);
+		int shift = highestBit - SUB_BUCKET_BITS;
+		int subBucket = (int) (value >>> shift) - SUB_BUCKETS;
+		return LINEAR_BUCKETS + (highestBit - 5) * SUB_BUCKETS + subBucket;
+	}
+
+	static long highestValue(int bucket) {
+		if (bucket < LINEAR_BUCKETS) {
+			return bucket;
+		}
+		int index = bucket - LINEAR_BUCKETS;
+		int shift = index / SUB_BUCKETS + 5 - SUB_BUCKET_BITS;
+		long top = index % SUB_BUCKETS + SUB_BUCKETS;
+		return ((top + 1) << shift) - 1;
+	}
+
+	private static double millis(long nanos) {
+		return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+	}
+}
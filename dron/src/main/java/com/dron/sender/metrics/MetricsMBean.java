@@ -0,0 +1,87 @@
+package com.dron.sender.metrics;
+
+import java.util.Map;
+
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.DynamicMBean;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanInfo;
+import javax.management.MBeanOperationInfo;
+import javax.management.ReflectionException;
+
+/**
+ * Read-only MBean with an attribute per value of the registry. Attributes
+ * follow the registry, metrics registered later appear without registering
+ * the MBean again.
+ * 
+ * @author Koropatva
+ *
+ */
+class MetricsMBean implements DynamicMBean {
+
+	private final MetricsRegistry registry;
+
+	MetricsMBean(MetricsRegistry registry) {
+		this.registry = registry;
+	}
+
+	@Override
+	public Object getAttribute(String attribute)
+			throws AttributeNotFoundException {
+		Number value = registry.getValues().get(attribute);
+		if (value == null) {
+			throw new AttributeNotFoundException(attribute);
+		}
+		return value;
+	}
+
+	@Override
+	public AttributeList getAttributes(String[] attributes) {
+		Map<String, Number> values = registry.getValues();
+		AttributeList list = new AttributeList();
+		for (String attribute : attributes) {
+			Number value = values.get(attribute);
+			if (value != null) {
+				list.add(new Attribute(attribute, value));
+			}
+		}
+		return list;
+	}
+
+	@Override
+	public void setAttribute(Attribute attribute)
+			throws AttributeNotFoundException {
+		throw new AttributeNotFoundException(attribute.getName()
+				+ " is read-only");
+	}
+
+	@Override
+	public AttributeList setAttributes(AttributeList attributes) {
+		return new AttributeList();
+	}
+
+	/**
+	 * The MBean has no operations
+	 */
+	@Override
+	public Object invoke(String actionName, Object[] params,
+			String[] signature) throws ReflectionException {
+		throw new ReflectionException(new NoSuchMethodException(actionName));
+	}
+
+	@Override
+	public MBeanInfo getMBeanInfo() {
+		Map<String, Number> values = registry.getValues();
+		MBeanAttributeInfo[] attributes = new MBeanAttributeInfo[values.size()];
+		int index = 0;
+		for (Map.Entry<String, Number> value : values.entrySet()) {
+			attributes[index++] = new MBeanAttributeInfo(value.getKey(), value
+					.getValue().getClass().getName(), value.getKey(), true,
+					false, false);
+		}
+		return new MBeanInfo(getClass().getName(), "Dron metrics",
+				attributes, null, new MBeanOperationInfo[0], null);
+	}
+}
@@ -0,0 +1,235 @@
+package com.dron.sender.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * Named counters, gauges and timers of the application. Metrics are created
+ * once by name and updated without locks. They can be read as a snapshot,
+ * from JMX or in the Prometheus text format.
+ * 
+ * Timers are latency histograms, they are exported in seconds as a summary
+ * with quantiles.
+ * 
+ * @author Koropatva
+ *
+ */
+public class MetricsRegistry {
+
+	private static final Log LOG = LogFactory.getLog(MetricsRegistry.class);
+
+	public static final String OBJECT_NAME = "com.dron.sender:type=Metrics";
+
+	private static final double[] QUANTILES = { 0.5, 0.9, 0.99, 0.999 };
+
+	private static final double NANOS_IN_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+	private static volatile MetricsRegistry INSTANCE;
+
+	private enum MetricType {
+		COUNTER, GAUGE, SUMMARY
+	}
+
+	private static final class Metric {
+
+		private final MetricType type;
+
+		private final String help;
+
+		private final Object value;
+
+		private Metric(MetricType type, String help, Object value) {
+			this.type = type;
+			this.help = help;
+			this.value = value;
+		}
+	}
+
+	// Sorted by name, so the export is stable
+	private final ConcurrentNavigableMap<String, Metric> metrics = new ConcurrentSkipListMap<String, Metric>();
+
+	public static MetricsRegistry getInstance() {
+		if (INSTANCE == null) {
+			synchronized (MetricsRegistry.class) {
+				if (INSTANCE == null) {
+					INSTANCE = new MetricsRegistry();
+				}
+			}
+		}
+		return INSTANCE;
+	}
+
+	/**
+	 * @return counter with the name, it is created on the first call
+	 */
+	public Counter counter(String name, String help) {
+		return (Counter) register(name, MetricType.COUNTER, help,
+				new Counter());
+	}
+
+	/**
+	 * @return timer with the name, it is created on the first call
+	 */
+	public LatencyHistogram timer(String name, String help) {
+		return (LatencyHistogram) register(name, MetricType.SUMMARY, help,
+				new LatencyHistogram());
+	}
+
+	/**
+	 * Registers the gauge, a gauge registered before with the name is
+	 * replaced
+	 */
+	public void gauge(String name, String help, Gauge gauge) {
+		Metric previous = metrics.put(name, new Metric(MetricType.GAUGE, help,
+				gauge));
+		if (previous != null && previous.type != MetricType.GAUGE) {
+			metrics.put(name, previous);
+			throw new IllegalArgumentException(name + " is already a "
+					+ previous.type);
+		}
+	}
+
+	public void remove(String name) {
+		metrics.remove(name);
+	}
+
+	/**
+	 * @return current values by name, timers give count, mean and quantiles
+	 *         in milliseconds as separate values
+	 */
+	public Map<String, Number> getValues() {
+		Map<String, Number> values = new LinkedHashMap<String, Number>();
+		metrics.forEach((name, metric) -> {
+			switch (metric.type) {
+				case COUNTER:
+					values.put(name, ((Counter) metric.value).getValue());
+					break;
+				case GAUGE:
+					values.put(name, ((Gauge) metric.value).getValue());
+					break;
+				case SUMMARY:
+					LatencyHistogram histogram = (LatencyHistogram) metric.value;
+					values.put(name + "_count", histogram.getCount());
+					values.put(name + "_mean_ms",
+							histogram.getMeanNanos() / 1000000);
+					for (double quantile : QUANTILES) {
+						values.put(name + "_p" + percentileName(quantile)
+								+ "_ms",
+								histogram.getValueAtPercentile(quantile * 100)
+										/ 1000000.0);
+					}
+					values.put(name + "_max_ms",
+							histogram.getMaxNanos() / 1000000.0);
+					break;
+			}
+		});
+		return values;
+	}
+
+	/**
+	 * @return all metrics in the Prometheus text exposition format
+	 */
+	public String toPrometheus() {
+		StringBuilder builder = new StringBuilder(1024);
+		metrics.forEach((name, metric) -> {
+			if (metric.help != null) {
+				builder.append("# HELP ").append(name).append(' ')
+						.append(escapeHelp(metric.help)).append('\n');
+			}
+			builder.append("# TYPE ").append(name).append(' ')
+					.append(metric.type.name().toLowerCase()).append('\n');
+			switch (metric.type) {
+				case COUNTER:
+					appendSample(builder, name, null,
+							((Counter) metric.value).getValue());
+					break;
+				case GAUGE:
+					appendSample(builder, name, null,
+							((Gauge) metric.value).getValue());
+					break;
+				case SUMMARY:
+					LatencyHistogram histogram = (LatencyHistogram) metric.value;
+					for (double quantile : QUANTILES) {
+						appendSample(builder, name, String.valueOf(quantile),
+								histogram.getValueAtPercentile(quantile * 100)
+										/ NANOS_IN_SECOND);
+					}
+					appendSample(builder, name + "_sum", null,
+							histogram.getSumNanos() / NANOS_IN_SECOND);
+					appendSample(builder, name + "_count", null,
+							histogram.getCount());
+					break;
+			}
+		});
+		return builder.toString();
+	}
+
+	/**
+	 * Registers the metrics MBean in the platform MBean server, nothing is
+	 * done if it is registered already
+	 */
+	public void registerMBean() {
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		try {
+			ObjectName name = new ObjectName(OBJECT_NAME);
+			if (!server.isRegistered(name)) {
+				server.registerMBean(new MetricsMBean(this), name);
+			}
+		} catch (JMException e) {
+			LOG.warn("Metrics MBean can't be registered: " + e.getMessage());
+		}
+	}
+
+	private Object register(String name, MetricType type, String help,
+			Object value) {
+		Metric metric = metrics.get(name);
+		if (metric == null) {
+			Metric created = new Metric(type, help, value);
+			metric = metrics.putIfAbsent(name, created);
+			if (metric == null) {
+				metric = created;
+			}
+		}
+		if (metric.type != type) {
+			throw new IllegalArgumentException(name + " is already a "
+					+ metric.type);
+		}
+		return metric.value;
+	}
+
+	private static void appendSample(StringBuilder builder, String name,
+			String quantile, double value) {
+		builder.append(name);
+		if (quantile != null) {
+			builder.append("{quantile=\"").append(quantile).append("\"}");
+		}
+		builder.append(' ');
+		if (value == (long) value) {
+			builder.append((long) value);
+		} else {
+			builder.append(value);
+		}
+		builder.append('\n');
+	}
+
+	private static String escapeHelp(String help) {
+		return help.replace("\\", "\\\\").replace("\n", "\\n");
+	}
+
+	private static String percentileName(double quantile) {
+		String percentile = String.valueOf(quantile * 100);
+		return percentile.endsWith(".0") ? percentile.substring(0,
+				percentile.length() - 2) : percentile.replace('.', '_');
+	}
+}
@@ -0,0 +1,83 @@
+package com.dron.sender.metrics;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Local HTTP endpoint serving metrics of the registry in the Prometheus text
+ * format on "/metrics".
+ * 
+ * @author Koropatva
+ *
+ */
+public class MetricsServer {
+
+	public static final String PATH = "/metrics";
+
+	private static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+	private final MetricsRegistry registry;
+
+	private final HttpServer server;
+
+	private final ExecutorService executor;
+
+	/**
+	 * Binds the endpoint to the loopback address, port 0 takes a free port
+	 */
+	public MetricsServer(MetricsRegistry registry, int port)
+			throws IOException {
+		this(registry, new InetSocketAddress("127.0.0.1", port));
+	}
+
+	public MetricsServer(MetricsRegistry registry, InetSocketAddress address)
+			throws IOException {
+		this.registry = registry;
+		server = HttpServer.create(address, 0);
+		server.createContext(PATH, this::handle);
+		executor = Executors.newSingleThreadExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "dron-metrics");
+			thread.setDaemon(true);
+			return thread;
+		});
+		server.setExecutor(executor);
+	}
+
+	public void start() {
+		server.start();
+	}
+
+	public void stop() {
+		server.stop(0);
+		executor.shutdownNow();
+	}
+
+	public int getPort() {
+		return server.getAddress().getPort();
+	}
+
+	private void handle(HttpExchange exchange) throws IOException {
+		try {
+			if (!"GET".equals(exchange.getRequestMethod())) {
+				exchange.sendResponseHeaders(405, -1);
+				return;
+			}
+			byte[] body = registry.toPrometheus().getBytes(
+					StandardCharsets.UTF_8);
+			exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+			exchange.sendResponseHeaders(200, body.length);
+			try (OutputStream response = exchange.getResponseBody()) {
+				response.write(body);
+			}
+		} finally {
+			exchange.close();
+		}
+	}
+}
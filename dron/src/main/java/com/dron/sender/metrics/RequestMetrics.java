@@ -0,0 +1,84 @@
+package com.dron.sender.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.http.HttpEntity;
+
+/**
+ * Counters of requests sent by the request runner: requests, errors, body
+ * bytes, requests in flight and request duration.
+ * 
+ * @author Koropatva
+ *
+ */
+public class RequestMetrics {
+
+	private final Counter requests;
+
+	private final Counter errors;
+
+	private final Counter requestBytes;
+
+	private final Counter responseBytes;
+
+	private final LatencyHistogram duration;
+
+	private final LongAdder inFlight = new LongAdder();
+
+	public RequestMetrics(MetricsRegistry registry) {
+		requests = registry.counter("dron_requests_total", "Requests sent");
+		errors = registry.counter("dron_request_errors_total",
+				"Requests failed with an error or an error status");
+		requestBytes = registry.counter("dron_request_body_bytes_total",
+				"Bytes of request bodies");
+		responseBytes = registry.counter("dron_response_body_bytes_total",
+				"Bytes of response bodies read as text");
+		duration = registry.timer("dron_request_duration_seconds",
+				"Time from sending a request to reading its response");
+		registry.gauge("dron_requests_in_flight",
+				"Requests sent and not answered yet", inFlight::sum);
+	}
+
+	/**
+	 * @return start time to pass to onComplete()
+	 */
+	public long onStart(HttpEntity<?> entity) {
+		requests.increment();
+		inFlight.increment();
+		if (entity != null && entity.getBody() instanceof CharSequence) {
+			requestBytes.add(utf8Length((CharSequence) entity.getBody()));
+		}
+		return System.nanoTime();
+	}
+
+	public void onComplete(long start, Object body, boolean success) {
+		duration.record(System.nanoTime() - start);
+		inFlight.decrement();
+		if (!success) {
+			errors.increment();
+		} else if (body instanceof CharSequence) {
+			responseBytes.add(utf8Length((CharSequence) body));
+		}
+	}
+
+	/**
+	 * @return length of the text in UTF-8, counted without encoding it
+	 */
+	public static long utf8Length(CharSequence text) {
+		long length = 0;
+		for (int i = 0; i < text.length(); i++) {
+			char c = text.charAt(i);
+			if (c < 0x80) {
+				length++;
+			} else if (c < 0x800) {
+				length += 2;
+			} else if (Character.isHighSurrogate(c)) {
+				length += 4;
+				i++;
+			} else {
+				length += 3;
+			}
+		}
+		return length;
+	}
+}
@@ -0,0 +1,11 @@
+package com.dron.sender.metrics;
+
+/**
+ * Phases of a request recorded by SequenceLatency.
+ * 
+ * @author Koropatva
+ *
+ */
+public enum RequestPhase {
+	DNS, CONNECT, TLS, TTFB, DOWNLOAD
+}
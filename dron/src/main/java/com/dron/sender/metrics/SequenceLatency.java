@@ -0,0 +1,134 @@
+package com.dron.sender.metrics;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.dron.sender.sequence.models.RequestTimings;
+
+/**
+ * Latency histograms of a sequence: one for whole sequence runs, one per
+ * plugin and one per request phase. Can be shared by any number of runs at the same time, like all
+ * virtual users of a load run.
+ * 
+ * Every run is recorded, failed, timed out and cancelled ones too, so the
+ * slowest outcomes stay in the tail. Failed runs are counted apart.
+ * 
+ * @author Koropatva
+ *
+ */
+public class SequenceLatency {
+
+	private final LatencyHistogram sequence = new LatencyHistogram();
+
+	private final LongAdder failedSequences = new LongAdder();
+
+	private final Map<String, LatencyHistogram> plugins = new ConcurrentHashMap<String, LatencyHistogram>();
+
+	// Names of plugins for the report, plugins are recorded by id
+	private final Map<String, String> names = new ConcurrentHashMap<String, String>();
+
+	// Filled once, only histograms are changed later
+	private final Map<RequestPhase, LatencyHistogram> phases = new EnumMap<RequestPhase, LatencyHistogram>(
+			RequestPhase.class);
+
+	public SequenceLatency() {
+		for (RequestPhase phase : RequestPhase.values()) {
+			phases.put(phase, new LatencyHistogram());
+		}
+	}
+
+	public void recordSequence(long nanos) {
+		recordSequence(nanos, false);
+	}
+
+	/**
+	 * @param failed
+	 *            true if a plugin failed or the run didn't complete
+	 */
+	public void recordSequence(long nanos, boolean failed) {
+		sequence.record(nanos);
+		if (failed) {
+			failedSequences.increment();
+		}
+	}
+
+	public void recordPlugin(String pluginId, String pluginName, long nanos) {
+		LatencyHistogram histogram = plugins.get(pluginId);
+		if (histogram == null) {
+			histogram = plugins.computeIfAbsent(pluginId,
+					id -> new LatencyHistogram());
+			if (pluginName != null) {
+				names.putIfAbsent(pluginId, pluginName);
+			}
+		}
+		histogram.record(nanos);
+	}
+
+	/**
+	 * Records phases of a request. DNS, connect and TLS are recorded for new
+	 * connections only, response phases if the response was received.
+	 */
+	public void recordTimings(RequestTimings timings) {
+		if (timings == null) {
+			return;
+		}
+		recordPhase(RequestPhase.DNS, timings.getDnsNanos());
+		recordPhase(RequestPhase.CONNECT, timings.getConnectNanos());
+		recordPhase(RequestPhase.TLS, timings.getTlsNanos());
+		if (timings.getTtfbNanos() > 0) {
+			phases.get(RequestPhase.TTFB).record(timings.getTtfbNanos());
+			phases.get(RequestPhase.DOWNLOAD).record(
+					timings.getDownloadNanos());
+		}
+	}
+
+	public LatencyHistogram getSequence() {
+		return sequence;
+	}
+
+	/**
+	 * @return number of recorded runs that failed
+	 */
+	public long getFailedSequences() {
+		return failedSequences.sum();
+	}
+
+	/**
+	 * @return histograms by plugin id
+	 */
+	public Map<String, LatencyHistogram> getPlugins() {
+		return plugins;
+	}
+
+	public LatencyHistogram getPhase(RequestPhase phase) {
+		return phases.get(phase);
+	}
+
+	public String getPluginName(String pluginId) {
+		return names.getOrDefault(pluginId, pluginId);
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder builder = new StringBuilder("Sequence: ")
+				.append(sequence).append("; failed: ")
+				.append(getFailedSequences());
+		plugins.forEach((id, histogram) -> builder.append('\n')
+				.append(getPluginName(id)).append(": ").append(histogram));
+		phases.forEach((phase, histogram) -> {
+			if (histogram.getCount() > 0) {
+				builder.append('\n').append(phase).append(": ")
+						.append(histogram);
+			}
+		});
+		return builder.toString();
+	}
+
+	private void recordPhase(RequestPhase phase, long nanos) {
+		if (nanos > 0) {
+			phases.get(phase).record(nanos);
+		}
+	}
+}
@@ -0,0 +1,186 @@
+package com.dron.sender.sequence.services;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Compiled dependence of a future param. The dependence string is parsed
+ * once into immutable steps and cached, so matching a response doesn't
+ * tokenize it again.
+ *
+ * Structure of the dependence: names of JSON objects separated by "..". A
+ * name followed by "[numbers separated by comma]" finds the first field with
+ * the name at any depth and selects its elements by index, "[numbers]"
+ * without a name selects elements of the current node.
+ *
+ * @author Koropatva
+ *
+ */
+public final class FuturePath {
+
+	private static final int MAX_CACHED_PATHS = 10000;
+
+	private static final ConcurrentMap<String, FuturePath> CACHE = new ConcurrentHashMap<String, FuturePath>();
+
+	public enum StepType {
+		// Field of the current object
+		FIELD,
+		// First field with the name at any depth, like JsonNode.findPath
+		DEEP,
+		// Elements of the current node by position
+		INDEX
+	}
+
+	public static final class Step {
+
+		private final StepType type;
+
+		private final String name;
+
+		// Selected positions as a bit set
+		private final long[] indexes;
+
+		private Step(StepType type, String name, long[] indexes) {
+			this.type = type;
+			this.name = name;
+			this.indexes = indexes;
+		}
+
+		public StepType getType() {
+			return type;
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		public boolean isIndexSelected(int position) {
+			int word = position >>> 6;
+			return word < indexes.length
+					&& (indexes[word] & (1L << position)) != 0;
+		}
+	}
+
+	private final String dependence;
+
+	private final Step[] steps;
+
+	private final boolean single;
+
+	private FuturePath(String dependence, Step[] steps) {
+		this.dependence = dependence;
+		this.steps = steps;
+		boolean fieldsOnly = true;
+		for (Step step : steps) {
+			fieldsOnly &= step.type == StepType.FIELD;
+		}
+		this.single = fieldsOnly;
+	}
+
+	/**
+	 * @return compiled path, the same instance for the same dependence
+	 *         until the cache is full
+	 * @throws IllegalArgumentException
+	 *             if the dependence can't be parsed
+	 */
+	public static FuturePath compile(String dependence) {
+		FuturePath path = CACHE.get(dependence);
+		if (path == null) {
+			path = parse(dependence);
+			if (CACHE.size() < MAX_CACHED_PATHS) {
+				FuturePath cached = CACHE.putIfAbsent(dependence, path);
+				if (cached != null) {
+					path = cached;
+				}
+			}
+		}
+		return path;
+	}
+
+	public String getDependence() {
+		return dependence;
+	}
+
+	public int length() {
+		return steps.length;
+	}
+
+	public Step getStep(int index) {
+		return steps[index];
+	}
+
+	/**
+	 * @return true if the path has no indexes, so it matches one value at
+	 *         most
+	 */
+	public boolean isSingle() {
+		return single;
+	}
+
+	/**
+	 * Forgets cached paths, so a test filling the cache doesn't change
+	 * paths compiled by others
+	 */
+	static void clearCache() {
+		CACHE.clear();
+	}
+
+	private static FuturePath parse(String dependence) {
+		if (dependence == null) {
+			throw new IllegalArgumentException("Dependence can't be null");
+		}
+		List<Step> steps = new ArrayList<Step>();
+		String roadValue = dependence;
+		int separator = roadValue.indexOf(FutureParamService.ROAD_SEPARATOR);
+		while (separator >= 0) {
+			String nodeName = roadValue.substring(0, separator);
+			roadValue = roadValue.substring(separator
+					+ FutureParamService.ROAD_SEPARATOR.length());
+
+			int bracket = nodeName.indexOf("[");
+			if (bracket >= 0) {
+				int closeBracket = nodeName.indexOf("]", bracket);
+				if (closeBracket < 0) {
+					throw new IllegalArgumentException("Missing ] in "
+							+ nodeName);
+				}
+				String name = nodeName.substring(0, bracket);
+				if (!name.isEmpty()) {
+					steps.add(new Step(StepType.DEEP, name, null));
+				}
+				steps.add(new Step(StepType.INDEX, null, parseIndexes(nodeName
+						.substring(bracket + 1, closeBracket))));
+			} else {
+				steps.add(new Step(StepType.FIELD, nodeName, null));
+			}
+			separator = roadValue.indexOf(FutureParamService.ROAD_SEPARATOR);
+		}
+		steps.add(new Step(StepType.FIELD, roadValue, null));
+		return new FuturePath(dependence, steps.toArray(new Step[steps.size()]));
+	}
+
+	private static long[] parseIndexes(String roadIndexes) {
+		String[] values = roadIndexes.split(",");
+		int[] indexes = new int[values.length];
+		int max = 0;
+		for (int i = 0; i < values.length; i++) {
+			try {
+				indexes[i] = Integer.parseInt(values[i].trim());
+			} catch (NumberFormatException e) {
+				throw new IllegalArgumentException("Wrong index "
+						+ values[i].trim(), e);
+			}
+			if (indexes[i] < 0) {
+				throw new IllegalArgumentException("Wrong index " + indexes[i]);
+			}
+			max = Math.max(max, indexes[i]);
+		}
+		long[] bits = new long[(max >>> 6) + 1];
+		for (int index : indexes) {
+			bits[index >>> 6] |= 1L << index;
+		}
+		return bits;
+	}
+}
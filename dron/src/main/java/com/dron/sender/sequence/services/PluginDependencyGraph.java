@@ -0,0 +1,105 @@
+package com.dron.sender.sequence.services;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.dron.sender.sequence.models.Param;
+import com.dron.sender.sequence.models.Plugin;
+import com.dron.sender.sequence.models.Sequence;
+import com.dron.sender.sequence.utils.ParamsUtils;
+
+/**
+ * Data dependencies between the ordered plugins of a sequence. A plugin
+ * depends on an earlier one if it uses a param the earlier one fills from
+ * its response, if it fills a param the earlier one uses or fills, or if it
+ * is the same plugin. Plugins without a path between them can run at the
+ * same time.
+ * 
+ * @author Koropatva
+ *
+ */
+public class PluginDependencyGraph {
+
+	private final List<String> order;
+
+	private final List<Set<Integer>> dependencies;
+
+	public PluginDependencyGraph(Sequence sequence) {
+		order = new ArrayList<String>(sequence.getOrder());
+		dependencies = new ArrayList<Set<Integer>>(order.size());
+
+		Map<String, String> paramValues = new HashMap<String, String>();
+		for (Param param : sequence.getParams()) {
+			paramValues.putIfAbsent(param.getKey(), param.getValue());
+		}
+
+		List<Set<String>> reads = new ArrayList<Set<String>>(order.size());
+		List<Set<String>> writes = new ArrayList<Set<String>>(order.size());
+		for (int index = 0; index < order.size(); index++) {
+			Plugin plugin = sequence.findPlugin(order.get(index));
+			Set<String> pluginReads = new HashSet<String>();
+			Set<String> pluginWrites = new HashSet<String>();
+			if (plugin != null) {
+				collectReads(plugin.getUrl(), paramValues, pluginReads);
+				collectReads(plugin.getPostBody(), paramValues, pluginReads);
+				plugin.getFutureParams().forEach(
+						futureParam -> pluginWrites.add(futureParam.getKey()));
+			}
+			reads.add(pluginReads);
+			writes.add(pluginWrites);
+
+			Set<Integer> pluginDependencies = new LinkedHashSet<Integer>();
+			for (int previous = 0; previous < index; previous++) {
+				if (order.get(previous).equals(order.get(index))
+						|| intersects(pluginReads, writes.get(previous))
+						|| intersects(pluginWrites, reads.get(previous))
+						|| intersects(pluginWrites, writes.get(previous))) {
+					pluginDependencies.add(previous);
+				}
+			}
+			dependencies.add(Collections.unmodifiableSet(pluginDependencies));
+		}
+	}
+
+	public int size() {
+		return order.size();
+	}
+
+	public String getPluginId(int index) {
+		return order.get(index);
+	}
+
+	/**
+	 * @return indexes in the order of plugins that should be finished before
+	 *         the plugin with the index is sent
+	 */
+	public Set<Integer> getDependencies(int index) {
+		return dependencies.get(index);
+	}
+
+	// Param values can use other params, so the keys are collected through
+	// the values as well
+	private void collectReads(String data, Map<String, String> paramValues,
+			Set<String> reads) {
+		for (String key : ParamsUtils.findParamKeys(data)) {
+			if (reads.add(key)) {
+				collectReads(paramValues.get(key), paramValues, reads);
+			}
+		}
+	}
+
+	private boolean intersects(Set<String> first, Set<String> second) {
+		for (String key : first) {
+			if (second.contains(key)) {
+				return true;
+			}
+		}
+		return false;
+	}
+}
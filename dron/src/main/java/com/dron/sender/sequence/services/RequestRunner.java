@@ -1,15 +1,40 @@
 package com.dron.sender.sequence.services;
 
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.concurrent.ListenableFuture;
+import org.springframework.util.concurrent.ListenableFutureCallback;
+import org.springframework.web.client.AsyncRestTemplate;
+import org.springframework.web.client.ResourceAccessException;
 import org.springframework.web.client.RestTemplate;
 
 import com.dron.sender.exceptions.HandlerNotReadyException;
+import com.dron.sender.jfr.DronEvents;
+import com.dron.sender.metrics.MetricsRegistry;
+import com.dron.sender.metrics.RequestMetrics;
+import com.dron.sender.sequence.enums.TransportType;
 import com.dron.sender.sequence.models.Plugin;
+import com.dron.sender.sequence.models.RequestTimings;
+import com.dron.sender.sequence.transport.Http2Statistics;
+import com.dron.sender.sequence.transport.Http2Transport;
+import com.dron.sender.sequence.transport.PoolStatistics;
+import com.dron.sender.sequence.transport.RequestTimeouts;
+import com.dron.sender.sequence.transport.TimingRecorder;
+import com.dron.sender.sequence.transport.Transport;
+import com.dron.sender.sequence.transport.TransportConfig;
+import com.dron.sender.sequence.transport.Transports;
 
 public class RequestRunner {
 
-	private static RequestRunner requestRunner;
+	private static volatile RequestRunner requestRunner;
 
 	private RequestRunner() {
+		registerPoolGauges(MetricsRegistry.getInstance());
 	}
 
 	public static RequestRunner getInstance() {
@@ -23,7 +48,97 @@ public class RequestRunner {
 		return requestRunner;
 	}
 
-	private RestTemplate restTemplate = new RestTemplate();
+	private volatile TransportConfig transportConfig = new TransportConfig();
+
+	// Clients by ordinal of the transport type, a client is created on the
+	// first request of its type
+	private volatile AtomicReferenceArray<Client> clients = newClients();
+
+	private final RequestMetrics metrics = new RequestMetrics(
+			MetricsRegistry.getInstance());
+
+	/**
+	 * Templates over one transport
+	 */
+	private static final class Client {
+
+		private final Transport transport;
+
+		private final RestTemplate restTemplate;
+
+		// Non-blocking template is created on the first async request, as IO
+		// reactor threads keep running until shutdown() is called
+		private volatile AsyncRestTemplate asyncRestTemplate;
+
+		private Client(Transport transport) {
+			this.transport = transport;
+			this.restTemplate = new RestTemplate(transport.getRequestFactory());
+		}
+
+		private AsyncRestTemplate getAsyncRestTemplate() throws IOException {
+			if (asyncRestTemplate == null) {
+				synchronized (this) {
+					if (asyncRestTemplate == null) {
+						asyncRestTemplate = new AsyncRestTemplate(
+								transport.getAsyncRequestFactory(),
+								restTemplate);
+					}
+				}
+			}
+			return asyncRestTemplate;
+		}
+	}
+
+	/**
+	 * Replaces the transports with new ones built from the config,
+	 * connections of the previous transports are closed.
+	 */
+	public synchronized void configure(TransportConfig config)
+			throws IOException {
+		AtomicReferenceArray<Client> previous = clients;
+		transportConfig = config;
+		clients = newClients();
+		for (int i = 0; i < previous.length(); i++) {
+			if (previous.get(i) != null) {
+				previous.get(i).transport.close();
+			}
+		}
+	}
+
+	public TransportConfig getTransportConfig() {
+		return transportConfig;
+	}
+
+	/**
+	 * @return statistics of the blocking pool of the default transport, or
+	 *         null if it has no pool or wasn't used yet
+	 */
+	public PoolStatistics getPoolStatistics() {
+		Client client = clients.get(transportConfig.getTransportType()
+				.ordinal());
+		return client == null ? null : client.transport.getPoolStatistics();
+	}
+
+	/**
+	 * @return statistics of the async pool of the default transport, or null
+	 *         if it has no pool or no async request was sent yet
+	 */
+	public PoolStatistics getAsyncPoolStatistics() {
+		Client client = clients.get(transportConfig.getTransportType()
+				.ordinal());
+		return client == null ? null : client.transport
+				.getAsyncPoolStatistics();
+	}
+
+	/**
+	 * @return connections and streams of the HTTP/2 transport, or null if it
+	 *         wasn't used yet
+	 */
+	public Http2Statistics getHttp2Statistics() {
+		Client client = clients.get(TransportType.HTTP2.ordinal());
+		return client == null ? null : ((Http2Transport) client.transport)
+				.getStatistics();
+	}
 
 	public String run(Plugin plugin) throws HandlerNotReadyException {
 		return run(plugin, String.class);
@@ -31,16 +146,399 @@ public class RequestRunner {
 
 	public <T> T run(Plugin plugin, Class<T> type)
 			throws HandlerNotReadyException {
-		switch (plugin.getHttpMethod()) {
-			case POST:
-				return restTemplate.postForObject(plugin.fillUrl(),
-						plugin.fillEntity(), type);
-			case GET:
-				return restTemplate.getForObject(plugin.fillUrl(), type);
-			default:
-				throw new HandlerNotReadyException(plugin.getHttpMethod()
-						+ " is not maintained for now");
+		return run(plugin, type, null);
+	}
+
+	/**
+	 * Sends the plugin request with the transport, the default one if it is
+	 * null. Phase times of the request are set to the plugin.
+	 */
+	public <T> T run(Plugin plugin, Class<T> type, TransportType transport)
+			throws HandlerNotReadyException {
+		Object event = DronEvents.beginPlugin();
+		RequestTimings timings = new RequestTimings();
+		plugin.setTimings(timings);
+		ResponseEntity<T> response = null;
+		Exception error = null;
+		try {
+			Object render = DronEvents.beginRender();
+			String url = plugin.fillUrl();
+			HttpEntity<String> entity = fillEntity(plugin);
+			DronEvents.endRender(render, plugin.getId(), url, entity);
+
+			response = exchange(transport, plugin.getHttpMethod(), url,
+					entity, type, timings, timeouts(plugin));
+			return response.getBody();
+		} catch (RuntimeException | HandlerNotReadyException e) {
+			error = e;
+			throw e;
+		} finally {
+			DronEvents.endPlugin(event, plugin.getId(), plugin.getName(),
+					plugin.getHttpMethod(), plugin.getUrl(), response, error);
+		}
+	}
+
+	/**
+	 * Sends a request with an already filled url and entity
+	 */
+	public <T> T run(HttpMethod httpMethod, String url,
+			HttpEntity<String> entity, Class<T> type)
+			throws HandlerNotReadyException {
+		return run(httpMethod, url, entity, type, null);
+	}
+
+	/**
+	 * Sends a request with an already filled url and entity, phase times of
+	 * the request are filled to the timings if they are not null
+	 */
+	public <T> T run(HttpMethod httpMethod, String url,
+			HttpEntity<String> entity, Class<T> type, RequestTimings timings)
+			throws HandlerNotReadyException {
+		return exchange(httpMethod, url, entity, type, timings, null)
+				.getBody();
+	}
+
+	/**
+	 * Sends a request like run() does and returns the whole response. The
+	 * timeouts override defaults of the transport if they are not null.
+	 */
+	public <T> ResponseEntity<T> exchange(HttpMethod httpMethod, String url,
+			HttpEntity<String> entity, Class<T> type, RequestTimings timings,
+			RequestTimeouts timeouts) throws HandlerNotReadyException {
+		return exchange(null, httpMethod, url, entity, type, timings,
+				timeouts);
+	}
+
+	/**
+	 * Sends a request with the transport, the default one if it is null
+	 */
+	public <T> ResponseEntity<T> exchange(TransportType transport,
+			HttpMethod httpMethod, String url, HttpEntity<String> entity,
+			Class<T> type, RequestTimings timings, RequestTimeouts timeouts)
+			throws HandlerNotReadyException {
+		TimingRecorder recorder = timings == null ? null
+				: new TimingRecorder();
+		if (recorder != null) {
+			recorder.bind();
+		}
+		if (timeouts != null) {
+			timeouts.bind();
+		}
+		long start = metrics.onStart(entity);
+		ResponseEntity<T> response = null;
+		try {
+			response = send(getClient(transport).restTemplate, httpMethod,
+					url, entity, type);
+			return response;
+		} finally {
+			metrics.onComplete(start, response == null ? null : response
+					.getBody(), response != null);
+			if (timeouts != null) {
+				timeouts.unbind();
+			}
+			if (recorder != null) {
+				recorder.unbind();
+				recorder.finish(timings);
+			}
+		}
+	}
+
+	/**
+	 * Sends a request of any method. HEAD response is read as Void, so the
+	 * body is never transferred and the entity has headers and status only.
+	 */
+	@SuppressWarnings("unchecked")
+	private static <T> ResponseEntity<T> send(RestTemplate restTemplate,
+			HttpMethod httpMethod, String url, HttpEntity<String> entity,
+			Class<T> type) throws HandlerNotReadyException {
+		checkMethod(httpMethod);
+		if (httpMethod == HttpMethod.HEAD) {
+			return (ResponseEntity<T>) restTemplate.exchange(url, httpMethod,
+					entity, Void.class);
+		}
+		return restTemplate.exchange(url, httpMethod, entity, type);
+	}
+
+	private static void checkMethod(HttpMethod httpMethod)
+			throws HandlerNotReadyException {
+		if (httpMethod == null) {
+			throw new HandlerNotReadyException("Http method can't be null");
+		}
+	}
+
+	/**
+	 * @return true if requests of the method carry the body of the plugin
+	 */
+	static boolean sendsBody(HttpMethod httpMethod) {
+		return httpMethod == HttpMethod.POST || httpMethod == HttpMethod.PUT
+				|| httpMethod == HttpMethod.PATCH;
+	}
+
+	public CompletableFuture<String> runAsync(Plugin plugin) {
+		return runAsync(plugin, String.class);
+	}
+
+	public <T> CompletableFuture<T> runAsync(Plugin plugin, Class<T> type) {
+		return runAsync(plugin, type, null);
+	}
+
+	/**
+	 * Sends the plugin request with the transport, the default one if it is
+	 * null, without blocking the calling thread. With the NIO clients the
+	 * returned future is completed from the IO reactor thread, cancelling it
+	 * cancels the request in flight. Phase times of the request are set to
+	 * the plugin.
+	 */
+	public <T> CompletableFuture<T> runAsync(Plugin plugin, Class<T> type,
+			TransportType transport) {
+		Object event = DronEvents.beginPlugin();
+		RequestTimings timings = new RequestTimings();
+		plugin.setTimings(timings);
+		final String url;
+		final HttpEntity<String> entity;
+		try {
+			Object render = DronEvents.beginRender();
+			url = plugin.fillUrl();
+			entity = fillEntity(plugin);
+			DronEvents.endRender(render, plugin.getId(), url, entity);
+		} catch (Exception e) {
+			DronEvents.endPlugin(event, plugin.getId(), plugin.getName(),
+					plugin.getHttpMethod(), plugin.getUrl(), null, e);
+			CompletableFuture<T> result = new CompletableFuture<T>();
+			result.completeExceptionally(e);
+			return result;
+		}
+		CompletableFuture<ResponseEntity<T>> response = exchangeAsync(
+				transport, plugin.getHttpMethod(), url, entity, type, timings,
+				timeouts(plugin));
+		if (event != null) {
+			response.whenComplete((responseEntity, e) -> DronEvents.endPlugin(
+					event, plugin.getId(), plugin.getName(),
+					plugin.getHttpMethod(), plugin.getUrl(), responseEntity, e));
+		}
+		return toBody(response);
+	}
+
+	/**
+	 * Sends a request with an already filled url and entity through the NIO
+	 * client
+	 */
+	public <T> CompletableFuture<T> runAsync(HttpMethod httpMethod,
+			String url, HttpEntity<String> entity, Class<T> type) {
+		return runAsync(httpMethod, url, entity, type, null);
+	}
+
+	/**
+	 * Sends a request with an already filled url and entity through the NIO
+	 * client, phase times of the request are filled to the timings before the
+	 * future is completed if they are not null
+	 */
+	public <T> CompletableFuture<T> runAsync(HttpMethod httpMethod,
+			String url, HttpEntity<String> entity, Class<T> type,
+			RequestTimings timings) {
+		return toBody(exchangeAsync(httpMethod, url, entity, type, timings,
+				null));
+	}
+
+	/**
+	 * Sends a request like runAsync() does, the future is completed with the
+	 * whole response. The timeouts override defaults of the transport if they
+	 * are not null.
+	 */
+	public <T> CompletableFuture<ResponseEntity<T>> exchangeAsync(
+			HttpMethod httpMethod, String url, HttpEntity<String> entity,
+			Class<T> type, RequestTimings timings, RequestTimeouts timeouts) {
+		return exchangeAsync(null, httpMethod, url, entity, type, timings,
+				timeouts);
+	}
+
+	/**
+	 * Sends a request without blocking with the transport, the default one if
+	 * it is null
+	 */
+	@SuppressWarnings("unchecked")
+	public <T> CompletableFuture<ResponseEntity<T>> exchangeAsync(
+			TransportType transport, HttpMethod httpMethod, String url,
+			HttpEntity<String> entity, Class<T> type, RequestTimings timings,
+			RequestTimeouts timeouts) {
+		final CompletableFuture<ResponseEntity<T>> result = new CompletableFuture<ResponseEntity<T>>();
+		final ListenableFuture<ResponseEntity<T>> response;
+		final TimingRecorder recorder = timings == null ? null
+				: new TimingRecorder();
+		if (recorder != null) {
+			recorder.bind();
+		}
+		if (timeouts != null) {
+			timeouts.bind();
+		}
+		final long start = metrics.onStart(entity);
+		try {
+			AsyncRestTemplate asyncRestTemplate = getClient(transport)
+					.getAsyncRestTemplate();
+			checkMethod(httpMethod);
+			if (httpMethod == HttpMethod.HEAD) {
+				response = (ListenableFuture<ResponseEntity<T>>) (ListenableFuture<?>) asyncRestTemplate
+						.exchange(url, httpMethod, entity, Void.class);
+			} else {
+				response = asyncRestTemplate.exchange(url, httpMethod, entity,
+						type);
+			}
+		} catch (Exception e) {
+			metrics.onComplete(start, null, false);
+			result.completeExceptionally(e);
+			return result;
+		} finally {
+			if (timeouts != null) {
+				timeouts.unbind();
+			}
+			if (recorder != null) {
+				recorder.unbind();
+			}
+		}
+
+		response.addCallback(new ListenableFutureCallback<ResponseEntity<T>>() {
+			@Override
+			public void onSuccess(ResponseEntity<T> entity) {
+				metrics.onComplete(start, entity.getBody(), true);
+				finish(recorder, timings);
+				result.complete(entity);
+			}
+
+			@Override
+			public void onFailure(Throwable t) {
+				metrics.onComplete(start, null, false);
+				finish(recorder, timings);
+				result.completeExceptionally(t);
+			}
+		});
+		result.whenComplete((responseEntity, e) -> {
+			if (result.isCancelled()) {
+				response.cancel(true);
+			}
+		});
+		return result;
+	}
+
+	/**
+	 * Closes connections of all transports and stops the NIO clients, should
+	 * be called when requests are not needed anymore. Next request opens new
+	 * ones.
+	 */
+	public void shutdown() throws IOException {
+		configure(transportConfig);
+	}
+
+	private void registerPoolGauges(MetricsRegistry registry) {
+		registry.gauge("dron_pool_connections_leased",
+				"Connections used by blocking requests", () -> {
+					PoolStatistics statistics = getPoolStatistics();
+					return statistics == null ? 0 : statistics.getLeased();
+				});
+		registry.gauge("dron_pool_connections_idle",
+				"Kept-alive connections of blocking requests", () -> {
+					PoolStatistics statistics = getPoolStatistics();
+					return statistics == null ? 0 : statistics.getIdle();
+				});
+		registry.gauge("dron_pool_requests_pending",
+				"Blocking requests waiting for a connection", () -> {
+					PoolStatistics statistics = getPoolStatistics();
+					return statistics == null ? 0 : statistics.getPending();
+				});
+		registry.gauge("dron_async_pool_connections_leased",
+				"Connections used by async requests", () -> {
+					PoolStatistics statistics = getAsyncPoolStatistics();
+					return statistics == null ? 0 : statistics.getLeased();
+				});
+		registry.gauge("dron_async_pool_connections_idle",
+				"Kept-alive connections of async requests", () -> {
+					PoolStatistics statistics = getAsyncPoolStatistics();
+					return statistics == null ? 0 : statistics.getIdle();
+				});
+		registry.gauge("dron_async_pool_requests_pending",
+				"Async requests waiting for a connection", () -> {
+					PoolStatistics statistics = getAsyncPoolStatistics();
+					return statistics == null ? 0 : statistics.getPending();
+				});
+		registry.gauge("dron_http2_connections",
+				"Open connections of the HTTP/2 transport", () -> {
+					Http2Statistics statistics = getHttp2Statistics();
+					return statistics == null ? 0 : statistics.getConnections();
+				});
+		registry.gauge("dron_http2_streams_active",
+				"Requests in flight over the HTTP/2 transport", () -> {
+					Http2Statistics statistics = getHttp2Statistics();
+					return statistics == null ? 0 : statistics
+							.getActiveStreams();
+				});
+	}
+
+	/**
+	 * @return future of the response body, cancelling it cancels the request
+	 */
+	private static <T> CompletableFuture<T> toBody(
+			CompletableFuture<ResponseEntity<T>> response) {
+		CompletableFuture<T> result = new CompletableFuture<T>();
+		response.whenComplete((entity, e) -> {
+			if (e != null) {
+				result.completeExceptionally(e);
+			} else {
+				result.complete(entity.getBody());
+			}
+		});
+		result.whenComplete((body, e) -> {
+			if (result.isCancelled()) {
+				response.cancel(true);
+			}
+		});
+		return result;
+	}
+
+	private static void finish(TimingRecorder recorder, RequestTimings timings) {
+		if (recorder != null) {
+			recorder.finish(timings);
 		}
 	}
 
+	private static RequestTimeouts timeouts(Plugin plugin) {
+		return RequestTimeouts.of(plugin.getConnectTimeoutMillis(),
+				plugin.getReadTimeoutMillis());
+	}
+
+	private HttpEntity<String> fillEntity(Plugin plugin) {
+		// Headers are sent with every method, the body is not rendered for
+		// methods without one
+		return sendsBody(plugin.getHttpMethod()) ? plugin.fillEntity()
+				: new HttpEntity<String>(plugin.getHeaders());
+	}
+
+	/**
+	 * @return client of the transport, the default one if it is null
+	 */
+	private Client getClient(TransportType transport) {
+		TransportType type = transport != null ? transport : transportConfig
+				.getTransportType();
+		Client client = clients.get(type.ordinal());
+		if (client == null) {
+			synchronized (this) {
+				client = clients.get(type.ordinal());
+				if (client == null) {
+					try {
+						client = new Client(Transports.create(type,
+								transportConfig));
+					} catch (IOException e) {
+						throw new ResourceAccessException(type
+								+ " transport can't be created: "
+								+ e.getMessage(), e);
+					}
+					clients.set(type.ordinal(), client);
+				}
+			}
+		}
+		return client;
+	}
+
+	private static AtomicReferenceArray<Client> newClients() {
+		return new AtomicReferenceArray<Client>(TransportType.values().length);
+	}
+
 }
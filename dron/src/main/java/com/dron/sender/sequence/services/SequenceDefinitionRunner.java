@@ -0,0 +1,275 @@
+package com.dron.sender.sequence.services;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import org.apache.http.concurrent.Cancellable;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.ResponseEntity;
+
+import com.dron.sender.jfr.DronEvents;
+import com.dron.sender.metrics.SequenceLatency;
+import com.dron.sender.sequence.models.PluginDefinition;
+import com.dron.sender.sequence.models.PluginResult;
+import com.dron.sender.sequence.models.RequestTimings;
+import com.dron.sender.sequence.models.SequenceRun;
+import com.dron.sender.sequence.transport.Deadline;
+import com.dron.sender.sequence.transport.RequestTimeouts;
+
+/**
+ * Sends plugins of a compiled sequence. All state of a run is kept in
+ * SequenceRun, so the runner is shared by all runs.
+ * 
+ * @author Koropatva
+ *
+ */
+public class SequenceDefinitionRunner {
+
+	private static volatile SequenceDefinitionRunner INSTANCE;
+
+	private final RequestRunner requestRunner = RequestRunner.getInstance();
+
+	private final FutureParamService futureParamService = FutureParamService
+			.getInstance();
+
+	private SequenceDefinitionRunner() {
+	}
+
+	public static SequenceDefinitionRunner getInstance() {
+		if (INSTANCE == null) {
+			synchronized (SequenceDefinitionRunner.class) {
+				if (INSTANCE == null) {
+					INSTANCE = new SequenceDefinitionRunner();
+				}
+			}
+		}
+		return INSTANCE;
+	}
+
+	/**
+	 * Sends plugins in the order of the definition, results are added to the
+	 * run
+	 */
+	public void run(SequenceRun run) {
+		run(run, null);
+	}
+
+	/**
+	 * Sends plugins in the order of the definition and records latencies of
+	 * the plugins and the whole run. Once the deadline of the run is expired
+	 * the request in flight is aborted and the rest plugins fail without
+	 * being sent.
+	 */
+	public void run(SequenceRun run, SequenceLatency latency) {
+		Object event = DronEvents.beginSequence();
+		long runStart = System.nanoTime();
+		Deadline deadline = createDeadline(run);
+		if (deadline != null) {
+			deadline.bind();
+		}
+		try {
+			for (PluginDefinition plugin : run.getDefinition().getPlugins()) {
+				if (deadline != null && deadline.isExpired()) {
+					skip(run, plugin, deadline);
+					continue;
+				}
+				Object pluginEvent = DronEvents.beginPlugin();
+				long start = System.nanoTime();
+				RequestTimings timings = new RequestTimings();
+				try {
+					ResponseEntity<String> response = requestRunner.exchange(
+							run.getTransportType(), plugin.getHttpMethod(),
+							fillUrl(run, plugin), fillEntity(run, plugin),
+							String.class, timings, timeouts(plugin));
+					endEvent(pluginEvent, plugin, response, null);
+					onResponse(run, plugin, response.getBody(), start,
+							timings, latency);
+				} catch (Exception e) {
+					endEvent(pluginEvent, plugin, null, e);
+					onFailure(run, plugin, failure(e, deadline), start,
+							timings, latency);
+				}
+			}
+		} finally {
+			if (deadline != null) {
+				deadline.unbind();
+				deadline.close();
+			}
+		}
+		if (latency != null) {
+			latency.recordSequence(System.nanoTime() - runStart,
+					failedPlugins(run) > 0);
+		}
+		endEvent(event, run);
+	}
+
+	public CompletableFuture<SequenceRun> runAsync(SequenceRun run) {
+		return runAsync(run, null);
+	}
+
+	/**
+	 * Sends plugins in the order of the definition without parking a thread
+	 * while requests are in flight
+	 */
+	public CompletableFuture<SequenceRun> runAsync(SequenceRun run,
+			SequenceLatency latency) {
+		Object event = DronEvents.beginSequence();
+		long runStart = System.nanoTime();
+		Deadline deadline = createDeadline(run);
+		CompletableFuture<Void> chain = CompletableFuture.completedFuture(null);
+		for (PluginDefinition plugin : run.getDefinition().getPlugins()) {
+			chain = chain.thenCompose(previous -> runPluginAsync(run, plugin,
+					latency, deadline));
+		}
+		return chain.whenComplete((previous, e) -> {
+			if (deadline != null) {
+				deadline.close();
+			}
+			if (latency != null) {
+				latency.recordSequence(System.nanoTime() - runStart, e != null
+						|| failedPlugins(run) > 0);
+			}
+			endEvent(event, run);
+		}).thenApply(previous -> run);
+	}
+
+	private CompletableFuture<Void> runPluginAsync(SequenceRun run,
+			PluginDefinition plugin, SequenceLatency latency, Deadline deadline) {
+		if (deadline != null && deadline.isExpired()) {
+			skip(run, plugin, deadline);
+			return CompletableFuture.completedFuture(null);
+		}
+		Object event = DronEvents.beginPlugin();
+		long start = System.nanoTime();
+		RequestTimings timings = new RequestTimings();
+		final CompletableFuture<ResponseEntity<String>> request;
+		try {
+			request = requestRunner.exchangeAsync(run.getTransportType(),
+					plugin.getHttpMethod(), fillUrl(run, plugin),
+					fillEntity(run, plugin), String.class, timings,
+					timeouts(plugin));
+		} catch (Exception e) {
+			endEvent(event, plugin, null, e);
+			onFailure(run, plugin, e, start, null, latency);
+			return CompletableFuture.completedFuture(null);
+		}
+		Cancellable cancel = () -> request.cancel(true);
+		if (deadline != null) {
+			deadline.register(cancel);
+		}
+		return request.handle((response, e) -> {
+			if (deadline != null) {
+				deadline.unregister(cancel);
+			}
+			Throwable error = e == null ? null : failure(
+					e instanceof CompletionException && e.getCause() != null ? e
+							.getCause() : e, deadline);
+			endEvent(event, plugin, response, error);
+			if (e == null) {
+				onResponse(run, plugin, response.getBody(), start, timings,
+						latency);
+			} else {
+				onFailure(run, plugin, error, start, timings, latency);
+			}
+			return null;
+		});
+	}
+
+	private static Deadline createDeadline(SequenceRun run) {
+		return run.getDeadlineMillis() > 0 ? new Deadline(
+				run.getDeadlineMillis()) : null;
+	}
+
+	/**
+	 * @return error of a failed plugin, the deadline error if it is expired
+	 */
+	private static Throwable failure(Throwable e, Deadline deadline) {
+		return deadline != null && deadline.isExpired() ? deadline
+				.exceeded(e) : e;
+	}
+
+	// Plugin isn't sent after the deadline, its latency is not recorded
+	private static void skip(SequenceRun run, PluginDefinition plugin,
+			Deadline deadline) {
+		run.addResult(new PluginResult(plugin.getId(), deadline.exceeded(
+				null).getMessage(), false, 0));
+	}
+
+	private static RequestTimeouts timeouts(PluginDefinition plugin) {
+		return RequestTimeouts.of(plugin.getConnectTimeoutMillis(),
+				plugin.getReadTimeoutMillis());
+	}
+
+	private HttpEntity<String> fillEntity(SequenceRun run,
+			PluginDefinition plugin) {
+		if (!RequestRunner.sendsBody(plugin.getHttpMethod())) {
+			return new HttpEntity<String>(plugin.getHeaders());
+		}
+		Object event = DronEvents.beginRender();
+		HttpEntity<String> entity = new HttpEntity<String>(
+				plugin.getPostBodyTemplate() == null ? null : run.fill(plugin
+						.getPostBodyTemplate()), plugin.getHeaders());
+		DronEvents.endRender(event, plugin.getId(), null, entity);
+		return entity;
+	}
+
+	private String fillUrl(SequenceRun run, PluginDefinition plugin) {
+		Object event = DronEvents.beginRender();
+		String url = plugin.getUrlTemplate() == null ? null : run.fill(plugin
+				.getUrlTemplate());
+		DronEvents.endRender(event, plugin.getId(), url, null);
+		return url;
+	}
+
+	private static void endEvent(Object event, PluginDefinition plugin,
+			ResponseEntity<String> response, Throwable error) {
+		DronEvents.endPlugin(event, plugin.getId(), plugin.getName(),
+				plugin.getHttpMethod(), plugin.getUrl(), response, error);
+	}
+
+	private static void endEvent(Object event, SequenceRun run) {
+		if (event == null) {
+			return;
+		}
+		DronEvents.endSequence(event, run.getDefinition().getId(), run
+				.getDefinition().getName(), run.getDefinition().getPlugins()
+				.size(), failedPlugins(run));
+	}
+
+	private static int failedPlugins(SequenceRun run) {
+		int failed = 0;
+		for (PluginResult result : run.getResults()) {
+			if (!result.isSuccess()) {
+				failed++;
+			}
+		}
+		return failed;
+	}
+
+	private void onResponse(SequenceRun run, PluginDefinition plugin,
+			String response, long start, RequestTimings timings,
+			SequenceLatency latency) {
+		futureParamService.fillFutureParams(response,
+				plugin.getFutureParams(), run);
+		run.addResult(new PluginResult(plugin.getId(), response, true,
+				record(plugin, start, timings, latency), timings));
+	}
+
+	private void onFailure(SequenceRun run, PluginDefinition plugin,
+			Throwable e, long start, RequestTimings timings,
+			SequenceLatency latency) {
+		run.addResult(new PluginResult(plugin.getId(), e.getMessage(), false,
+				record(plugin, start, timings, latency), timings));
+	}
+
+	private long record(PluginDefinition plugin, long start,
+			RequestTimings timings, SequenceLatency latency) {
+		long duration = System.nanoTime() - start;
+		if (latency != null) {
+			latency.recordPlugin(plugin.getId(), plugin.getName(), duration);
+			latency.recordTimings(timings);
+		}
+		return duration;
+	}
+
+}
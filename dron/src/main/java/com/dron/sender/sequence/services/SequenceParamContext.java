@@ -0,0 +1,47 @@
+package com.dron.sender.sequence.services;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import com.dron.sender.pattern.interfaces.IParamContext;
+import com.dron.sender.sequence.models.Param;
+import com.dron.sender.sequence.models.Sequence;
+
+/**
+ * Param context that writes into the params of a sequence.
+ * 
+ * @author Koropatva
+ *
+ */
+public class SequenceParamContext implements IParamContext {
+
+	private static final Log LOG = LogFactory.getLog(SequenceParamContext.class);
+
+	private final Sequence sequence;
+
+	public SequenceParamContext(Sequence sequence) {
+		this.sequence = sequence;
+	}
+
+	@Override
+	public void putParam(String key, String value) {
+		// Try to search if we have it param in the list
+		Param currentParam = sequence.getParam(key);
+
+		// If the param presents, just update it
+		if (currentParam != null) {
+			currentParam.setValue(value);
+			if (LOG.isDebugEnabled()) {
+				LOG.debug("Updated param with key = " + key + " and value = "
+						+ currentParam.getValue());
+			}
+		} else {
+			// Other way added new
+			sequence.addParam(new Param(key, value));
+			if (LOG.isDebugEnabled()) {
+				LOG.debug("Added new param with key = " + key
+						+ " and value = " + value);
+			}
+		}
+	}
+}
@@ -1,9 +1,20 @@
 package com.dron.sender.sequence.services;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import org.apache.http.concurrent.Cancellable;
+
 import com.dron.sender.exceptions.DronSenderException;
 import com.dron.sender.exceptions.HandlerNotReadyException;
+import com.dron.sender.jfr.DronEvents;
+import com.dron.sender.metrics.SequenceLatency;
+import com.dron.sender.sequence.enums.TransportType;
 import com.dron.sender.sequence.models.Plugin;
 import com.dron.sender.sequence.models.Sequence;
+import com.dron.sender.sequence.transport.Deadline;
 
 public class SequenceRunner {
 
@@ -14,39 +25,320 @@ public class SequenceRunner {
 
 	private Sequence sequence;
 
+	private final SequenceLatency latency;
+
+	// Time a sequence run may take, 0 if it is not limited
+	private long deadlineMillis;
+
+	// Default transport of the request runner if null
+	private TransportType transportType;
+
+	private volatile boolean cancelled;
+
+	// Deadline of the last started run, cancel expires it
+	private volatile Deadline active;
+
 	public SequenceRunner(Sequence sequence) {
+		this(sequence, new SequenceLatency());
+	}
+
+	/**
+	 * Latencies are recorded to the given histograms, they can be shared by
+	 * runners of the same sequence
+	 */
+	public SequenceRunner(Sequence sequence, SequenceLatency latency) {
 		this.sequence = sequence;
+		this.latency = latency;
+	}
+
+	public SequenceLatency getLatency() {
+		return latency;
+	}
+
+	public long getDeadlineMillis() {
+		return deadlineMillis;
+	}
+
+	/**
+	 * Limits the time of a sequence run. Requests in flight at the deadline
+	 * are aborted, the rest plugins are not sent and the run fails with
+	 * RequestException. 0 means no limit.
+	 */
+	public void setDeadlineMillis(long deadlineMillis) {
+		this.deadlineMillis = deadlineMillis;
+	}
+
+	public TransportType getTransportType() {
+		return transportType;
+	}
+
+	/**
+	 * Chooses the HTTP client plugins are sent with, null means the default
+	 * transport of RequestRunner
+	 */
+	public void setTransportType(TransportType transportType) {
+		this.transportType = transportType;
+	}
+
+	public boolean isCancelled() {
+		return cancelled;
+	}
+
+	/**
+	 * Cancels the run from any thread. The request in flight is aborted, the
+	 * rest plugins are not sent and runSequence fails with RequestException.
+	 * Runs started after cancel are cancelled at once.
+	 */
+	public void cancel() {
+		cancelled = true;
+		Deadline deadline = active;
+		if (deadline != null) {
+			deadline.cancel();
+		}
 	}
 
 	public void runSequence() throws DronSenderException {
-		for (String orderedId : sequence.getOrder()) {
-			runPlugin(orderedId);
+		Object event = DronEvents.beginSequence();
+		long start = System.nanoTime();
+		Deadline deadline = createDeadline();
+		deadline.bind();
+		boolean completed = false;
+		try {
+			for (String orderedId : sequence.getOrder()) {
+				if (deadline.isExpired()) {
+					throw deadline.exceeded(null);
+				}
+				sendPlugin(orderedId);
+			}
+			if (deadline.isExpired()) {
+				throw deadline.exceeded(null);
+			}
+			completed = true;
+		} finally {
+			deadline.unbind();
+			deadline.close();
+			latency.recordSequence(System.nanoTime() - start, !completed
+					|| failedPlugins() > 0);
+			endEvent(event);
 		}
 	}
 
+	/**
+	 * Sends the plugin. Its requests are aborted by the deadline bound to the
+	 * current thread, otherwise by the deadline and cancel of this runner.
+	 */
 	public void runPlugin(String orderedId) throws DronSenderException {
-		if (orderedId == null) {
-			throw new HandlerNotReadyException("orderId can't be null");
+		if (Deadline.current() != null) {
+			sendPlugin(orderedId);
+			return;
 		}
+		Deadline deadline = createDeadline();
+		deadline.bind();
+		try {
+			sendPlugin(orderedId);
+		} finally {
+			deadline.unbind();
+			deadline.close();
+		}
+	}
 
-		Plugin plugin = sequence.findPlugin(orderedId);
-		if (plugin == null) {
-			throw new HandlerNotReadyException("Plugin can't be null");
+	private void sendPlugin(String orderedId) throws DronSenderException {
+		Plugin plugin = preparePlugin(orderedId);
+
+		long start = System.nanoTime();
+		try {
+			String response = restFullService.run(plugin, String.class,
+					transportType);
+			onResponse(plugin, response);
+		} catch (Exception e) {
+			onFailure(plugin, failure(e, Deadline.current()));
+		} finally {
+			recordPlugin(plugin, start);
+			// Added sent plugin to the history
+			sequence.getSentPlugins().add(plugin.clone());
 		}
+	}
 
+	/**
+	 * Runs plugins in the declared order without parking a thread while
+	 * requests are in flight, the next plugin is sent once the previous
+	 * response is handled.
+	 */
+	public CompletableFuture<Void> runSequenceAsync() {
+		Object event = DronEvents.beginSequence();
+		long start = System.nanoTime();
+		Deadline deadline = createDeadline();
+		CompletableFuture<Void> chain = CompletableFuture.completedFuture(null);
+		for (String orderedId : sequence.getOrder()) {
+			chain = chain.thenCompose(previous -> runPluginAsync(orderedId,
+					deadline));
+		}
+		return recordSequence(chain, start, event, deadline);
+	}
+
+	/**
+	 * Runs plugins as a dependency graph: a plugin is sent as soon as the
+	 * plugins it depends on are finished, independent plugins are in flight
+	 * at the same time. Plugins that depend on each other keep the declared
+	 * order.
+	 */
+	public CompletableFuture<Void> runSequenceParallel() {
+		Object event = DronEvents.beginSequence();
+		long start = System.nanoTime();
+		Deadline deadline = createDeadline();
+		PluginDependencyGraph graph = new PluginDependencyGraph(sequence);
+		List<CompletableFuture<Void>> plugins = new ArrayList<CompletableFuture<Void>>(
+				graph.size());
+		for (int index = 0; index < graph.size(); index++) {
+			final String orderedId = graph.getPluginId(index);
+			CompletableFuture<?>[] dependencies = graph.getDependencies(index)
+					.stream().map(plugins::get)
+					.toArray(CompletableFuture<?>[]::new);
+			plugins.add(CompletableFuture.allOf(dependencies).thenCompose(
+					previous -> runPluginAsync(orderedId, deadline)));
+		}
+		return recordSequence(CompletableFuture.allOf(plugins
+				.toArray(new CompletableFuture<?>[plugins.size()])), start,
+				event, deadline);
+	}
+
+	public CompletableFuture<Void> runPluginAsync(String orderedId) {
+		return runPluginAsync(orderedId, null);
+	}
+
+	private CompletableFuture<Void> runPluginAsync(String orderedId,
+			Deadline deadline) {
+		final Plugin plugin;
 		try {
-			plugin.setSequence(sequence);
-			String response = restFullService.run(plugin);
-			plugin.setResponce(response);
-			plugin.setSuccess(true);
-			futureParamService.fillFutureParams(plugin);
+			if (deadline != null && deadline.isExpired()) {
+				throw deadline.exceeded(null);
+			}
+			plugin = preparePlugin(orderedId);
+		} catch (DronSenderException e) {
+			CompletableFuture<Void> failed = new CompletableFuture<Void>();
+			failed.completeExceptionally(e);
+			return failed;
+		}
 
-		} catch (Exception e) {
-			plugin.setResponce(e.getMessage());
-			plugin.setSuccess(false);
+		// Params and history of the sequence are shared by plugins in flight
+		final long start = System.nanoTime();
+		final CompletableFuture<String> request;
+		synchronized (sequence) {
+			request = restFullService.runAsync(plugin, String.class,
+					transportType);
+		}
+		Cancellable cancel = () -> request.cancel(true);
+		if (deadline != null) {
+			deadline.register(cancel);
+		}
+		return request.handle((response, e) -> {
+			if (deadline != null) {
+				deadline.unregister(cancel);
+			}
+			recordPlugin(plugin, start);
+			synchronized (sequence) {
+				handleAsyncResponse(plugin, response,
+						e == null ? null : failure(e, deadline));
+			}
+			return null;
+		});
+	}
+
+	private Deadline createDeadline() {
+		Deadline deadline = new Deadline(deadlineMillis);
+		active = deadline;
+		// Cancel could miss the deadline that was not active yet
+		if (cancelled) {
+			deadline.cancel();
+		}
+		return deadline;
+	}
+
+	private CompletableFuture<Void> recordSequence(
+			CompletableFuture<Void> run, long start, Object event,
+			Deadline deadline) {
+		return run.whenComplete((result, e) -> {
+			deadline.close();
+			synchronized (sequence) {
+				latency.recordSequence(System.nanoTime() - start, e != null
+						|| failedPlugins() > 0);
+				endEvent(event);
+			}
+		});
+	}
+
+	/**
+	 * @return error of a failed plugin, the deadline error if it is expired
+	 */
+	private static Throwable failure(Throwable e, Deadline deadline) {
+		return deadline != null && deadline.isExpired() ? deadline
+				.exceeded(e) : e;
+	}
+
+	private void endEvent(Object event) {
+		if (event == null) {
+			return;
+		}
+		DronEvents.endSequence(event, sequence.getId(), sequence.getName(),
+				sequence.getOrder().size(), failedPlugins());
+	}
+
+	private int failedPlugins() {
+		int failed = 0;
+		for (String orderedId : sequence.getOrder()) {
+			Plugin plugin = sequence.findPlugin(orderedId);
+			if (plugin != null && !plugin.isSuccess()) {
+				failed++;
+			}
+		}
+		return failed;
+	}
+
+	private void recordPlugin(Plugin plugin, long start) {
+		latency.recordPlugin(plugin.getId(), plugin.getName(),
+				System.nanoTime() - start);
+		latency.recordTimings(plugin.getTimings());
+	}
+
+	private void handleAsyncResponse(Plugin plugin, String response,
+			Throwable e) {
+		try {
+			if (e == null) {
+				onResponse(plugin, response);
+			} else {
+				onFailure(plugin, e instanceof CompletionException
+						&& e.getCause() != null ? e.getCause() : e);
+			}
+		} catch (Exception ex) {
+			onFailure(plugin, ex);
 		} finally {
 			// Added sent plugin to the history
 			sequence.getSentPlugins().add(plugin.clone());
 		}
 	}
+
+	private Plugin preparePlugin(String orderedId) throws DronSenderException {
+		if (orderedId == null) {
+			throw new HandlerNotReadyException("orderId can't be null");
+		}
+
+		Plugin plugin = sequence.findPlugin(orderedId);
+		if (plugin == null) {
+			throw new HandlerNotReadyException("Plugin can't be null");
+		}
+		plugin.setSequence(sequence);
+		return plugin;
+	}
+
+	private void onResponse(Plugin plugin, String response) {
+		plugin.setResponce(response);
+		plugin.setSuccess(true);
+		futureParamService.fillFutureParams(response,
+				plugin.getFutureParams(), new SequenceParamContext(sequence));
+	}
+
+	private void onFailure(Plugin plugin, Throwable e) {
+		plugin.setResponce(e.getMessage());
+		plugin.setSuccess(false);
+	}
 }
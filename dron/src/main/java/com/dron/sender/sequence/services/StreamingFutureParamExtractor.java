@@ -0,0 +1,252 @@
+package com.dron.sender.sequence.services;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import com.dron.sender.metrics.ErrorMetrics;
+import com.dron.sender.sequence.models.FutureParam;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+/**
+ * Extracts values of future params from a JSON response with the streaming
+ * parser, without building the tree of the response. All dependence paths
+ * of a plugin are matched in one pass, subtrees no path needs are skipped and
+ * parsing stops once every path is satisfied.
+ *
+ * Dependences are compiled to FuturePath once and shared between runs.
+ *
+ * @author Koropatva
+ *
+ */
+public class StreamingFutureParamExtractor {
+
+	private static final Log LOG = LogFactory.getLog(StreamingFutureParamExtractor.class);
+
+	private final JsonFactory factory;
+
+	public StreamingFutureParamExtractor(JsonFactory factory) {
+		this.factory = factory;
+	}
+
+	/**
+	 * Passes values found in the response to the consumer. Values are passed
+	 * in the order of the future params, values of one future param in the
+	 * order they appear in the response.
+	 * 
+	 * @return number of values passed to the consumer
+	 */
+	public int extract(String response, List<FutureParam> futureParams,
+			BiConsumer<FutureParam, String> consumer) throws IOException {
+		if (response == null || futureParams.isEmpty()) {
+			return 0;
+		}
+
+		// Future params with the same dependence share one path
+		Map<FuturePath, List<String>> values = new IdentityHashMap<FuturePath, List<String>>();
+		List<Cursor> cursors = new ArrayList<Cursor>(futureParams.size());
+		// Paths in the order of the future params, null for a wrong dependence
+		List<FuturePath> paths = new ArrayList<FuturePath>(futureParams.size());
+		for (FutureParam futureParam : futureParams) {
+			FuturePath path = null;
+			try {
+				path = FuturePath.compile(futureParam.getDependence());
+				if (!values.containsKey(path)) {
+					values.put(path, new ArrayList<String>(1));
+					cursors.add(new Cursor(path, 0));
+				}
+			} catch (IllegalArgumentException e) {
+				ErrorMetrics.getInstance().onParamError();
+				LOG.warn("Wrong dependence " + futureParam.getDependence()
+						+ ": " + e.getMessage());
+			}
+			paths.add(path);
+		}
+
+		Matcher matcher = new Matcher(values);
+		try (JsonParser parser = factory.createParser(response)) {
+			if (parser.nextToken() != null) {
+				matcher.readValue(parser, cursors, 0);
+			}
+		}
+
+		int passed = 0;
+		for (int i = 0; i < futureParams.size(); i++) {
+			FutureParam futureParam = futureParams.get(i);
+			List<String> pathValues = paths.get(i) == null ? null : values
+					.get(paths.get(i));
+			if (pathValues != null) {
+				pathValues.forEach(value -> consumer.accept(futureParam,
+						value));
+				passed += pathValues.size();
+			}
+		}
+		return passed;
+	}
+
+	private static final class Cursor {
+
+		private final FuturePath path;
+
+		private final int step;
+
+		// Deep search is over once the first field is found
+		private boolean found;
+
+		private Cursor(FuturePath path, int step) {
+			this.path = path;
+			this.step = step;
+		}
+	}
+
+	private static final class Matcher {
+
+		private final Map<FuturePath, List<String>> values;
+
+		// Lists of matched cursors are reused for every value of a depth
+		private final List<List<Cursor>> levels = new ArrayList<List<Cursor>>();
+
+		private int unsatisfied;
+
+		private Matcher(Map<FuturePath, List<String>> values) {
+			this.values = values;
+			unsatisfied = values.size();
+			for (FuturePath path : values.keySet()) {
+				if (!path.isSingle()) {
+					unsatisfied = -1;
+				}
+			}
+		}
+
+		/**
+		 * Reads the value the parser points to.
+		 *
+		 * @return true when all paths are satisfied and parsing can stop
+		 */
+		private boolean readValue(JsonParser parser, List<Cursor> cursors,
+				int depth) throws IOException {
+			if (cursors.isEmpty()) {
+				parser.skipChildren();
+				return false;
+			}
+
+			JsonToken token = parser.getCurrentToken();
+			if (token == JsonToken.START_OBJECT) {
+				List<Cursor> children = level(depth + 1);
+				int position = 0;
+				while (parser.nextToken() == JsonToken.FIELD_NAME) {
+					String name = parser.getCurrentName();
+					parser.nextToken();
+					children.clear();
+					for (int i = 0; i < cursors.size(); i++) {
+						matchField(parser, cursors.get(i), name, position,
+								children);
+					}
+					if (unsatisfied == 0
+							|| readValue(parser, children, depth + 1)) {
+						return true;
+					}
+					position++;
+				}
+			} else if (token == JsonToken.START_ARRAY) {
+				List<Cursor> children = level(depth + 1);
+				int position = 0;
+				while (parser.nextToken() != JsonToken.END_ARRAY) {
+					children.clear();
+					for (int i = 0; i < cursors.size(); i++) {
+						matchElement(cursors.get(i), position, children);
+					}
+					if (readValue(parser, children, depth + 1)) {
+						return true;
+					}
+					position++;
+				}
+			}
+			return false;
+		}
+
+		private void matchField(JsonParser parser, Cursor cursor, String name,
+				int position, List<Cursor> children) throws IOException {
+			FuturePath.Step step = cursor.path.getStep(cursor.step);
+			switch (step.getType()) {
+				case FIELD:
+					if (name.equals(step.getName())) {
+						if (cursor.step == cursor.path.length() - 1) {
+							capture(parser, cursor.path);
+						} else {
+							children.add(new Cursor(cursor.path,
+									cursor.step + 1));
+						}
+					}
+					break;
+				case DEEP:
+					if (!cursor.found) {
+						if (name.equals(step.getName())) {
+							cursor.found = true;
+							children.add(new Cursor(cursor.path,
+									cursor.step + 1));
+						} else {
+							children.add(cursor);
+						}
+					}
+					break;
+				case INDEX:
+					// Object is iterated by its field values
+					matchElement(cursor, position, children);
+					break;
+			}
+		}
+
+		private void matchElement(Cursor cursor, int position,
+				List<Cursor> children) {
+			FuturePath.Step step = cursor.path.getStep(cursor.step);
+			if (step.getType() == FuturePath.StepType.DEEP && !cursor.found) {
+				children.add(cursor);
+			} else if (step.getType() == FuturePath.StepType.INDEX
+					&& step.isIndexSelected(position)) {
+				children.add(new Cursor(cursor.path, cursor.step + 1));
+			}
+		}
+
+		private void capture(JsonParser parser, FuturePath path)
+				throws IOException {
+			List<String> pathValues = values.get(path);
+			JsonToken token = parser.getCurrentToken();
+			if (token == JsonToken.VALUE_NULL
+					|| (path.isSingle() && !pathValues.isEmpty())) {
+				return;
+			}
+			switch (token) {
+				case START_OBJECT:
+				case START_ARRAY:
+					// The same text as JsonNode.asText() gives for containers
+					pathValues.add("");
+					break;
+				case VALUE_NUMBER_FLOAT:
+					pathValues.add(String.valueOf(parser.getDoubleValue()));
+					break;
+				default:
+					pathValues.add(parser.getText());
+					break;
+			}
+			if (path.isSingle() && unsatisfied > 0) {
+				unsatisfied--;
+			}
+		}
+
+		private List<Cursor> level(int depth) {
+			while (levels.size() <= depth) {
+				levels.add(new ArrayList<Cursor>(4));
+			}
+			return levels.get(depth);
+		}
+	}
+}
@@ -0,0 +1,100 @@
+package com.dron.sender.sequence.transport;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+
+import org.apache.http.concurrent.Cancellable;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.client.AbstractClientHttpRequest;
+import org.springframework.http.client.AsyncClientHttpRequest;
+import org.springframework.http.client.AsyncClientHttpRequestFactory;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.util.concurrent.ListenableFuture;
+
+/**
+ * Blocking requests sent through a non-blocking factory, the calling thread
+ * waits for the response. The request is cancelled if the thread is
+ * interrupted or the Deadline bound to it expires.
+ * 
+ * @author Koropatva
+ *
+ */
+class BlockingRequestFactory implements ClientHttpRequestFactory {
+
+	private final AsyncClientHttpRequestFactory asyncRequestFactory;
+
+	BlockingRequestFactory(AsyncClientHttpRequestFactory asyncRequestFactory) {
+		this.asyncRequestFactory = asyncRequestFactory;
+	}
+
+	@Override
+	public ClientHttpRequest createRequest(URI uri, HttpMethod httpMethod)
+			throws IOException {
+		return new BlockingRequest(asyncRequestFactory.createAsyncRequest(uri,
+				httpMethod));
+	}
+
+	private static final class BlockingRequest extends
+			AbstractClientHttpRequest {
+
+		private final AsyncClientHttpRequest request;
+
+		private BlockingRequest(AsyncClientHttpRequest request) {
+			this.request = request;
+		}
+
+		@Override
+		public HttpMethod getMethod() {
+			return request.getMethod();
+		}
+
+		@Override
+		public URI getURI() {
+			return request.getURI();
+		}
+
+		@Override
+		protected OutputStream getBodyInternal(HttpHeaders headers)
+				throws IOException {
+			return request.getBody();
+		}
+
+		@Override
+		protected ClientHttpResponse executeInternal(HttpHeaders headers)
+				throws IOException {
+			request.getHeaders().putAll(headers);
+			ListenableFuture<ClientHttpResponse> response = request
+					.executeAsync();
+			Deadline deadline = Deadline.current();
+			Cancellable cancel = () -> response.cancel(true);
+			if (deadline != null) {
+				deadline.register(cancel);
+			}
+			try {
+				return response.get();
+			} catch (InterruptedException e) {
+				response.cancel(true);
+				Thread.currentThread().interrupt();
+				throw new InterruptedIOException("Request is interrupted");
+			} catch (ExecutionException e) {
+				if (e.getCause() instanceof IOException) {
+					throw (IOException) e.getCause();
+				}
+				throw new IOException(e.getCause());
+			} catch (CancellationException e) {
+				throw new IOException("Request is cancelled", e);
+			} finally {
+				if (deadline != null) {
+					deadline.unregister(cancel);
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,83 @@
+package com.dron.sender.sequence.transport;
+
+import java.io.IOException;
+
+import org.apache.http.ConnectionClosedException;
+import org.apache.http.impl.nio.conn.PoolingNHttpClientConnectionManager;
+import org.apache.http.nio.NHttpConnection;
+import org.apache.http.nio.protocol.HttpAsyncClientExchangeHandler;
+import org.apache.http.nio.protocol.HttpAsyncRequestExecutor;
+import org.apache.http.nio.reactor.ConnectingIOReactor;
+import org.apache.http.nio.reactor.IOEventDispatch;
+import org.apache.http.nio.reactor.IOSession;
+
+/**
+ * NIO connection manager failing the exchange of a connection closed before
+ * its request was sent. The request executor drops such an exchange without
+ * completing it when the server closes a pooled connection just as it is
+ * leased, the request would never return otherwise. RetryingAsyncClient
+ * sends it again on another connection.
+ *
+ * @author Koropatva
+ *
+ */
+class ClosedExchangeConnectionManager extends
+		PoolingNHttpClientConnectionManager {
+
+	ClosedExchangeConnectionManager(ConnectingIOReactor ioReactor) {
+		super(ioReactor);
+	}
+
+	@Override
+	public void execute(IOEventDispatch eventDispatch) throws IOException {
+		super.execute(new ClosedExchangeDispatch(eventDispatch));
+	}
+
+	private static final class ClosedExchangeDispatch implements
+			IOEventDispatch {
+
+		private final IOEventDispatch dispatch;
+
+		private ClosedExchangeDispatch(IOEventDispatch dispatch) {
+			this.dispatch = dispatch;
+		}
+
+		@Override
+		public void connected(IOSession session) {
+			dispatch.connected(session);
+		}
+
+		@Override
+		public void inputReady(IOSession session) {
+			dispatch.inputReady(session);
+		}
+
+		@Override
+		public void outputReady(IOSession session) {
+			dispatch.outputReady(session);
+		}
+
+		@Override
+		public void timeout(IOSession session) {
+			dispatch.timeout(session);
+		}
+
+		@Override
+		public void disconnected(IOSession session) {
+			Object connection = session
+					.getAttribute(IOEventDispatch.CONNECTION_KEY);
+			Object handler = null;
+			if (connection instanceof NHttpConnection) {
+				handler = ((NHttpConnection) connection).getContext()
+						.getAttribute(HttpAsyncRequestExecutor.HTTP_HANDLER);
+			}
+			dispatch.disconnected(session);
+			if (handler instanceof HttpAsyncClientExchangeHandler
+					&& !((HttpAsyncClientExchangeHandler) handler).isDone()) {
+				((HttpAsyncClientExchangeHandler) handler)
+						.failed(new ConnectionClosedException(
+								"Connection closed"));
+			}
+		}
+	}
+}
@@ -0,0 +1,183 @@
+package com.dron.sender.sequence.transport;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.concurrent.Cancellable;
+
+import com.dron.sender.exceptions.RequestException;
+
+/**
+ * Time limit of a sequence run. Requests registered with the deadline are
+ * cancelled when it expires, so a hung backend doesn't hold the thread and
+ * the connection after the run is over. Blocking requests sent while the
+ * deadline is bound to the thread are registered by the transport.
+ * 
+ * A run can be cancelled before the deadline, it expires the deadline at
+ * once. A deadline without timeout is only expired by cancel.
+ * 
+ * Transports unregister a request once its response is closed, requests
+ * still registered are dropped when the deadline is closed.
+ * 
+ * @author Koropatva
+ *
+ */
+public class Deadline implements AutoCloseable {
+
+	private static final ThreadLocal<Deadline> CURRENT = new ThreadLocal<Deadline>();
+
+	private static volatile ScheduledExecutorService timer;
+
+	private final long timeoutMillis;
+
+	private final long deadlineNanos;
+
+	private final Set<Cancellable> requests = ConcurrentHashMap.newKeySet();
+
+	// Null if the deadline has no timeout
+	private final ScheduledFuture<?> expiry;
+
+	private volatile boolean expired;
+
+	private volatile boolean cancelled;
+
+	/**
+	 * @param timeoutMillis
+	 *            time the run may take, 0 if it is only limited by cancel
+	 */
+	public Deadline(long timeoutMillis) {
+		this.timeoutMillis = timeoutMillis;
+		if (timeoutMillis > 0) {
+			this.deadlineNanos = System.nanoTime()
+					+ TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+			this.expiry = getTimer().schedule(this::expire, timeoutMillis,
+					TimeUnit.MILLISECONDS);
+		} else {
+			this.deadlineNanos = Long.MAX_VALUE;
+			this.expiry = null;
+		}
+	}
+
+	public long getTimeoutMillis() {
+		return timeoutMillis;
+	}
+
+	public long getRemainingMillis() {
+		if (expiry == null) {
+			return expired ? 0 : Long.MAX_VALUE;
+		}
+		return Math.max(0, TimeUnit.NANOSECONDS.toMillis(deadlineNanos
+				- System.nanoTime()));
+	}
+
+	public boolean isExpired() {
+		return expired;
+	}
+
+	public boolean isCancelled() {
+		return cancelled;
+	}
+
+	/**
+	 * Expires the deadline now, registered requests are cancelled
+	 */
+	public void cancel() {
+		cancelled = true;
+		if (expiry != null) {
+			expiry.cancel(false);
+		}
+		expire();
+	}
+
+	/**
+	 * @return error of a plugin failed or skipped as the deadline is expired
+	 */
+	public RequestException exceeded(Throwable cause) {
+		if (cancelled) {
+			return new RequestException("Sequence is cancelled", cause);
+		}
+		return new RequestException("Sequence deadline of " + timeoutMillis
+				+ " ms is exceeded", cause);
+	}
+
+	/**
+	 * Registers a request to cancel at the deadline, it is cancelled at once
+	 * if the deadline is expired
+	 */
+	public void register(Cancellable request) {
+		requests.add(request);
+		if (expired && requests.remove(request)) {
+			request.cancel();
+		}
+	}
+
+	public void unregister(Cancellable request) {
+		requests.remove(request);
+	}
+
+	/**
+	 * @return number of requests cancelled if the deadline expires now
+	 */
+	public int getRequestCount() {
+		return requests.size();
+	}
+
+	public void bind() {
+		CURRENT.set(this);
+	}
+
+	public void unbind() {
+		CURRENT.remove();
+	}
+
+	/**
+	 * @return deadline bound to the current thread, or null
+	 */
+	public static Deadline current() {
+		return CURRENT.get();
+	}
+
+	/**
+	 * Stops the timer, requests are not cancelled anymore
+	 */
+	@Override
+	public void close() {
+		if (expiry != null) {
+			expiry.cancel(false);
+		}
+		requests.clear();
+	}
+
+	private void expire() {
+		expired = true;
+		for (Cancellable request : requests) {
+			if (requests.remove(request)) {
+				request.cancel();
+			}
+		}
+	}
+
+	private static ScheduledExecutorService getTimer() {
+		if (timer == null) {
+			synchronized (Deadline.class) {
+				if (timer == null) {
+					ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(
+							1, runnable -> {
+								Thread thread = new Thread(runnable,
+										"dron-deadline");
+								thread.setDaemon(true);
+								return thread;
+							});
+					// Closed deadlines don't leave their tasks in the queue
+					executor.setRemoveOnCancelPolicy(true);
+					timer = executor;
+				}
+			}
+		}
+		return timer;
+	}
+}
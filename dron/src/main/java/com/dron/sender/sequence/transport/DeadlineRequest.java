@@ -0,0 +1,152 @@
+package com.dron.sender.sequence.transport;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+
+import org.apache.http.concurrent.Cancellable;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpResponse;
+
+/**
+ * Request cancelled by the deadline bound to the thread that created it. It
+ * is registered with the deadline while it is executed and its response is
+ * read, the response close unregisters it, so a deadline doesn't keep
+ * finished requests of the run.
+ *
+ * Request factories pass the way to cancel a request from their hooks with
+ * prepare and wrap the created request.
+ *
+ * @author Koropatva
+ *
+ */
+final class DeadlineRequest implements ClientHttpRequest {
+
+	// Set by a hook of the factory and taken by wrap on the same thread
+	private static final ThreadLocal<Cancellable> PREPARED = new ThreadLocal<Cancellable>();
+
+	private final ClientHttpRequest request;
+
+	private final Deadline deadline;
+
+	private final Cancellable cancel;
+
+	private DeadlineRequest(ClientHttpRequest request, Deadline deadline,
+			Cancellable cancel) {
+		this.request = request;
+		this.deadline = deadline;
+		this.cancel = cancel;
+	}
+
+	/**
+	 * Keeps the way to cancel the request being created, if a deadline is
+	 * bound to the thread
+	 */
+	static void prepare(Cancellable cancel) {
+		if (Deadline.current() != null) {
+			PREPARED.set(cancel);
+		}
+	}
+
+	/**
+	 * @return the request cancelled by the deadline bound to the thread, the
+	 *         request itself if there is no deadline
+	 */
+	static ClientHttpRequest wrap(ClientHttpRequest request) {
+		Cancellable cancel = discard();
+		Deadline deadline = Deadline.current();
+		if (cancel == null || deadline == null) {
+			return request;
+		}
+		return new DeadlineRequest(request, deadline, cancel);
+	}
+
+	/**
+	 * @return the prepared way to cancel a request, it is not kept anymore
+	 */
+	static Cancellable discard() {
+		Cancellable cancel = PREPARED.get();
+		if (cancel != null) {
+			PREPARED.remove();
+		}
+		return cancel;
+	}
+
+	@Override
+	public ClientHttpResponse execute() throws IOException {
+		deadline.register(cancel);
+		try {
+			return new DeadlineResponse(request.execute());
+		} catch (IOException | RuntimeException e) {
+			deadline.unregister(cancel);
+			throw e;
+		}
+	}
+
+	@Override
+	public HttpMethod getMethod() {
+		return request.getMethod();
+	}
+
+	@Override
+	public URI getURI() {
+		return request.getURI();
+	}
+
+	@Override
+	public HttpHeaders getHeaders() {
+		return request.getHeaders();
+	}
+
+	@Override
+	public OutputStream getBody() throws IOException {
+		return request.getBody();
+	}
+
+	private final class DeadlineResponse implements ClientHttpResponse {
+
+		private final ClientHttpResponse response;
+
+		private DeadlineResponse(ClientHttpResponse response) {
+			this.response = response;
+		}
+
+		@Override
+		public HttpStatus getStatusCode() throws IOException {
+			return response.getStatusCode();
+		}
+
+		@Override
+		public int getRawStatusCode() throws IOException {
+			return response.getRawStatusCode();
+		}
+
+		@Override
+		public String getStatusText() throws IOException {
+			return response.getStatusText();
+		}
+
+		@Override
+		public HttpHeaders getHeaders() {
+			return response.getHeaders();
+		}
+
+		@Override
+		public InputStream getBody() throws IOException {
+			return response.getBody();
+		}
+
+		@Override
+		public void close() {
+			try {
+				response.close();
+			} finally {
+				deadline.unregister(cancel);
+			}
+		}
+	}
+}
@@ -0,0 +1,75 @@
+package com.dron.sender.sequence.transport;
+
+/**
+ * Snapshot of connections and streams of the HTTP/2 transport. Requests to
+ * servers without HTTP/2 are counted as streams too, each of them holds a
+ * connection while it is in flight.
+ * 
+ * @author Koropatva
+ *
+ */
+public class Http2Statistics {
+
+	private final int connections;
+
+	private final int idleConnections;
+
+	private final long connectionsOpened;
+
+	private final int activeStreams;
+
+	private final long streamsOpened;
+
+	public Http2Statistics(final int connections, final int idleConnections,
+			final long connectionsOpened, final int activeStreams,
+			final long streamsOpened) {
+		this.connections = connections;
+		this.idleConnections = idleConnections;
+		this.connectionsOpened = connectionsOpened;
+		this.activeStreams = activeStreams;
+		this.streamsOpened = streamsOpened;
+	}
+
+	/**
+	 * @return open connections, idle ones included
+	 */
+	public int getConnections() {
+		return connections;
+	}
+
+	/**
+	 * @return open connections without streams
+	 */
+	public int getIdleConnections() {
+		return idleConnections;
+	}
+
+	/**
+	 * @return connections opened since the transport was created
+	 */
+	public long getConnectionsOpened() {
+		return connectionsOpened;
+	}
+
+	/**
+	 * @return requests in flight
+	 */
+	public int getActiveStreams() {
+		return activeStreams;
+	}
+
+	/**
+	 * @return requests sent since the transport was created
+	 */
+	public long getStreamsOpened() {
+		return streamsOpened;
+	}
+
+	@Override
+	public String toString() {
+		return String.format(
+				"[connections: %d; idle: %d; opened: %d; active streams: %d; streams: %d]",
+				connections, idleConnections, connectionsOpened,
+				activeStreams, streamsOpened);
+	}
+}
@@ -0,0 +1,273 @@
+package com.dron.sender.sequence.transport;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.net.URI;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import okhttp3.Call;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.EventListener;
+import okhttp3.Handshake;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Request;
+
+import org.springframework.http.client.AsyncClientHttpRequestFactory;
+import org.springframework.http.client.ClientHttpRequestFactory;
+
+/**
+ * HTTP/2 transport over OkHttp. Concurrent requests to one host share a few
+ * connections as multiplexed streams, a new connection is opened only when
+ * the server limits streams of a connection.
+ * 
+ * Plain "http" urls use h2c with prior knowledge, like local stubs expect.
+ * "https" urls negotiate h2 by ALPN and fall back to HTTP/1.1 if the server
+ * or the JVM (Java 8 before 8u252) doesn't support it.
+ * 
+ * Async requests in flight are limited by the total connections of the
+ * config, as one connection carries many of them. Timeouts, the Deadline
+ * and the TimingRecorder of the calling thread are applied.
+ * 
+ * @author Koropatva
+ *
+ */
+public class Http2Transport implements Transport {
+
+	private static final List<Protocol> CLEARTEXT_PROTOCOLS = Collections
+			.singletonList(Protocol.H2_PRIOR_KNOWLEDGE);
+
+	private static final List<Protocol> TLS_PROTOCOLS = Arrays.asList(
+			Protocol.HTTP_2, Protocol.HTTP_1_1);
+
+	private final TransportConfig config;
+
+	private final ExecutorService executor;
+
+	private final ConnectionPool connectionPool;
+
+	private final Dispatcher dispatcher;
+
+	private final OkHttpClient cleartextClient;
+
+	private final OkHttpClient tlsClient;
+
+	private final OkHttpRequestFactory requestFactory;
+
+	private final LongAdder connectionsOpened = new LongAdder();
+
+	private final AtomicInteger activeStreams = new AtomicInteger();
+
+	private final LongAdder streamsOpened = new LongAdder();
+
+	public Http2Transport(TransportConfig config) {
+		this.config = config;
+		// Each async call blocks a thread of the dispatcher until its response,
+		// a queue would keep all of them on one thread, so calls are handed
+		// off to a thread each like in the default dispatcher of OkHttp. The
+		// number of calls is limited by the dispatcher.
+		executor = new ThreadPoolExecutor(0, Integer.MAX_VALUE,
+				config.getKeepAliveMillis(), TimeUnit.MILLISECONDS,
+				new SynchronousQueue<Runnable>(), runnable -> {
+					Thread thread = new Thread(runnable, "dron-http2");
+					thread.setDaemon(true);
+					return thread;
+				});
+		dispatcher = new Dispatcher(executor);
+		dispatcher.setMaxRequests(config.getMaxConnectionsTotal());
+		dispatcher.setMaxRequestsPerHost(config.getMaxConnectionsTotal());
+		connectionPool = new ConnectionPool(
+				config.getMaxConnectionsPerRoute(),
+				config.getIdleEvictionMillis(), TimeUnit.MILLISECONDS);
+
+		OkHttpClient client = new OkHttpClient.Builder()
+				.dispatcher(dispatcher)
+				.connectionPool(connectionPool)
+				.eventListenerFactory(call -> new Listener(call.request()))
+				.connectTimeout(config.getConnectTimeoutMillis(),
+						TimeUnit.MILLISECONDS)
+				.readTimeout(config.getReadTimeoutMillis(),
+						TimeUnit.MILLISECONDS)
+				.writeTimeout(config.getReadTimeoutMillis(),
+						TimeUnit.MILLISECONDS).build();
+		cleartextClient = client.newBuilder().protocols(CLEARTEXT_PROTOCOLS)
+				.build();
+		tlsClient = client.newBuilder().protocols(TLS_PROTOCOLS).build();
+		requestFactory = new OkHttpRequestFactory(this::client);
+	}
+
+	@Override
+	public ClientHttpRequestFactory getRequestFactory() {
+		return requestFactory;
+	}
+
+	@Override
+	public AsyncClientHttpRequestFactory getAsyncRequestFactory() {
+		return requestFactory;
+	}
+
+	/**
+	 * Connections carrying streams are shown as leased, calls waiting for the
+	 * dispatcher as pending
+	 */
+	@Override
+	public PoolStatistics getPoolStatistics() {
+		int idle = connectionPool.idleConnectionCount();
+		return new PoolStatistics(connectionPool.connectionCount() - idle, idle,
+				dispatcher.queuedCallsCount(), config.getMaxConnectionsTotal());
+	}
+
+	@Override
+	public PoolStatistics getAsyncPoolStatistics() {
+		return getPoolStatistics();
+	}
+
+	public Http2Statistics getStatistics() {
+		return new Http2Statistics(connectionPool.connectionCount(),
+				connectionPool.idleConnectionCount(),
+				connectionsOpened.sum(), activeStreams.get(),
+				streamsOpened.sum());
+	}
+
+	@Override
+	public void close() throws IOException {
+		dispatcher.cancelAll();
+		executor.shutdown();
+		connectionPool.evictAll();
+	}
+
+	/**
+	 * @return client of the url scheme with timeouts of the current thread
+	 */
+	private OkHttpClient client(URI uri) {
+		OkHttpClient client = "https".equalsIgnoreCase(uri.getScheme()) ? tlsClient
+				: cleartextClient;
+		RequestTimeouts timeouts = RequestTimeouts.current();
+		if (timeouts == null) {
+			return client;
+		}
+		// Derived client shares the pool and the dispatcher
+		OkHttpClient.Builder builder = client.newBuilder();
+		if (timeouts.getConnectTimeoutMillis() != null) {
+			builder.connectTimeout(timeouts.getConnectTimeoutMillis(),
+					TimeUnit.MILLISECONDS);
+		}
+		if (timeouts.getReadTimeoutMillis() != null) {
+			builder.readTimeout(timeouts.getReadTimeoutMillis(),
+					TimeUnit.MILLISECONDS);
+			builder.writeTimeout(timeouts.getReadTimeoutMillis(),
+					TimeUnit.MILLISECONDS);
+		}
+		return builder.build();
+	}
+
+	/**
+	 * Counts connections and streams, phases of a request are recorded to
+	 * its timing recorder. One listener serves one call.
+	 */
+	private final class Listener extends EventListener {
+
+		private final TimingRecorder recorder;
+
+		private long dnsStart;
+
+		private long connectStart;
+
+		private long tlsStart;
+
+		private long tls;
+
+		private Listener(Request request) {
+			this.recorder = request.tag(TimingRecorder.class);
+		}
+
+		@Override
+		public void callStart(Call call) {
+			activeStreams.incrementAndGet();
+			streamsOpened.increment();
+		}
+
+		@Override
+		public void callEnd(Call call) {
+			activeStreams.decrementAndGet();
+		}
+
+		@Override
+		public void callFailed(Call call, IOException ioe) {
+			activeStreams.decrementAndGet();
+		}
+
+		@Override
+		public void dnsStart(Call call, String domainName) {
+			dnsStart = System.nanoTime();
+		}
+
+		@Override
+		public void dnsEnd(Call call, String domainName,
+				List<InetAddress> inetAddressList) {
+			if (recorder != null) {
+				recorder.addDns(System.nanoTime() - dnsStart);
+			}
+		}
+
+		@Override
+		public void connectStart(Call call, InetSocketAddress inetSocketAddress,
+				Proxy proxy) {
+			connectStart = System.nanoTime();
+			tls = 0;
+		}
+
+		@Override
+		public void secureConnectStart(Call call) {
+			tlsStart = System.nanoTime();
+		}
+
+		@Override
+		public void secureConnectEnd(Call call, Handshake handshake) {
+			tls = System.nanoTime() - tlsStart;
+		}
+
+		@Override
+		public void connectEnd(Call call, InetSocketAddress inetSocketAddress,
+				Proxy proxy, Protocol protocol) {
+			connectionsOpened.increment();
+			if (recorder != null) {
+				// Connect of OkHttp includes the TLS handshake
+				recorder.addConnect(System.nanoTime() - connectStart - tls);
+				recorder.addTls(tls);
+			}
+		}
+
+		@Override
+		public void requestHeadersEnd(Call call, Request request) {
+			if (recorder != null) {
+				recorder.markSent();
+			}
+		}
+
+		@Override
+		public void requestBodyEnd(Call call, long byteCount) {
+			if (recorder != null) {
+				recorder.markSent();
+			}
+		}
+
+		@Override
+		public void responseHeadersStart(Call call) {
+			if (recorder != null) {
+				recorder.markHeaders();
+			}
+		}
+	}
+}
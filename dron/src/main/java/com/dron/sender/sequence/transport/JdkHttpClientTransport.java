@@ -0,0 +1,471 @@
+package com.dron.sender.sequence.transport;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.net.URI;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.AbstractClientHttpResponse;
+import org.springframework.http.client.AsyncClientHttpRequest;
+import org.springframework.http.client.AsyncClientHttpRequestFactory;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.util.concurrent.ListenableFuture;
+import org.springframework.util.concurrent.ListenableFutureCallback;
+
+/**
+ * Transport over the JDK HttpClient of java.net.http (Java 11+). The client
+ * is looked up reflectively, so the project still builds and runs on Java 8,
+ * where this transport is not supported. It negotiates h2 by ALPN for
+ * "https" urls, "http" urls are sent with HTTP/1.1 and an h2c upgrade offer.
+ *
+ * Blocking requests wait for the async response, like NioTransport. The read
+ * timeout is the time to the response headers, connect timeouts of a
+ * request are not applied, the connect timeout of the config is. Only the
+ * total time of a request is recorded.
+ *
+ * @author Koropatva
+ *
+ */
+public class JdkHttpClientTransport implements Transport {
+
+	// Set by the client itself, it rejects them as request headers
+	private static final Set<String> RESTRICTED_HEADERS = new HashSet<String>(
+			Arrays.asList("connection", "content-length", "expect", "host",
+					"upgrade"));
+
+	private static final Api API = Api.find();
+
+	private final TransportConfig config;
+
+	private final ExecutorService executor;
+
+	private final Object client;
+
+	private final RequestFactory asyncRequestFactory = new RequestFactory();
+
+	private final BlockingRequestFactory requestFactory = new BlockingRequestFactory(
+			asyncRequestFactory);
+
+	public JdkHttpClientTransport(TransportConfig config) throws IOException {
+		if (!isSupported()) {
+			throw new IOException("JDK HttpClient isn't supported by "
+					+ System.getProperty("java.version"));
+		}
+		this.config = config;
+		// Tasks are handed off to a thread each, like in the default executor
+		// of HttpClient, a queue would keep all of them on one thread
+		executor = new ThreadPoolExecutor(0, Integer.MAX_VALUE,
+				config.getKeepAliveMillis(), TimeUnit.MILLISECONDS,
+				new SynchronousQueue<Runnable>(), runnable -> {
+					Thread thread = new Thread(runnable, "dron-jdk-http");
+					thread.setDaemon(true);
+					return thread;
+				});
+		Object builder = API.invoke(API.clientNewBuilder, null);
+		API.invoke(API.clientConnectTimeout, builder,
+				Duration.ofMillis(config.getConnectTimeoutMillis()));
+		API.invoke(API.clientExecutor, builder, executor);
+		client = API.invoke(API.clientBuild, builder);
+	}
+
+	/**
+	 * @return true if java.net.http is present
+	 */
+	public static boolean isSupported() {
+		return API != null;
+	}
+
+	@Override
+	public ClientHttpRequestFactory getRequestFactory() {
+		return requestFactory;
+	}
+
+	@Override
+	public AsyncClientHttpRequestFactory getAsyncRequestFactory() {
+		return asyncRequestFactory;
+	}
+
+	@Override
+	public PoolStatistics getPoolStatistics() {
+		return null;
+	}
+
+	@Override
+	public PoolStatistics getAsyncPoolStatistics() {
+		return null;
+	}
+
+	/**
+	 * Clients of Java 21+ are closed, older ones stop with their executor
+	 */
+	@Override
+	public void close() throws IOException {
+		try {
+			if (client instanceof AutoCloseable) {
+				((AutoCloseable) client).close();
+			}
+		} catch (Exception e) {
+			throw new IOException(e);
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	private final class RequestFactory implements
+			AsyncClientHttpRequestFactory {
+
+		@Override
+		public AsyncClientHttpRequest createAsyncRequest(URI uri,
+				HttpMethod httpMethod) {
+			RequestTimeouts timeouts = RequestTimeouts.current();
+			int readTimeoutMillis = timeouts != null
+					&& timeouts.getReadTimeoutMillis() != null ? timeouts
+					.getReadTimeoutMillis() : config.getReadTimeoutMillis();
+			return new JdkClientRequest(uri, httpMethod, readTimeoutMillis);
+		}
+	}
+
+	private final class JdkClientRequest implements AsyncClientHttpRequest {
+
+		private final URI uri;
+
+		private final HttpMethod httpMethod;
+
+		private final int readTimeoutMillis;
+
+		private final HttpHeaders headers = new HttpHeaders();
+
+		private final ByteArrayOutputStream body = new ByteArrayOutputStream(
+				256);
+
+		private JdkClientRequest(URI uri, HttpMethod httpMethod,
+				int readTimeoutMillis) {
+			this.uri = uri;
+			this.httpMethod = httpMethod;
+			this.readTimeoutMillis = readTimeoutMillis;
+		}
+
+		@Override
+		public HttpMethod getMethod() {
+			return httpMethod;
+		}
+
+		@Override
+		public URI getURI() {
+			return uri;
+		}
+
+		@Override
+		public HttpHeaders getHeaders() {
+			return headers;
+		}
+
+		@Override
+		public OutputStream getBody() {
+			return body;
+		}
+
+		@Override
+		public ListenableFuture<ClientHttpResponse> executeAsync()
+				throws IOException {
+			Object builder = API.invoke(API.requestNewBuilder, null, uri);
+			for (Map.Entry<String, List<String>> header : headers.entrySet()) {
+				if (RESTRICTED_HEADERS.contains(header.getKey().toLowerCase())) {
+					continue;
+				}
+				for (String value : header.getValue()) {
+					API.invoke(API.requestHeader, builder, header.getKey(),
+							value);
+				}
+			}
+			Object publisher = body.size() > 0 ? API.invoke(
+					API.publisherOfByteArray, null, body.toByteArray()) : API
+					.invoke(API.publisherNoBody, null);
+			API.invoke(API.requestMethod, builder, httpMethod.name(),
+					publisher);
+			if (readTimeoutMillis > 0) {
+				API.invoke(API.requestTimeout, builder,
+						Duration.ofMillis(readTimeoutMillis));
+			}
+			Object request = API.invoke(API.requestBuild, builder);
+			ResponseFuture response = new ResponseFuture();
+			send(request, response, 0);
+			return response;
+		}
+
+		/**
+		 * The client retries only GET and HEAD on a connection the server
+		 * closed, other idempotent requests are sent again here
+		 */
+		private void send(Object request, ResponseFuture response, int retries)
+				throws IOException {
+			@SuppressWarnings("unchecked")
+			CompletableFuture<Object> exchange = (CompletableFuture<Object>) API
+					.invoke(API.clientSendAsync, client, request,
+							API.inputStreamHandler);
+			response.exchange = exchange;
+			if (response.isCancelled()) {
+				exchange.cancel(true);
+			}
+			exchange.whenComplete((jdkResponse, e) -> {
+				if (e != null) {
+					Throwable cause = e instanceof CompletionException
+							&& e.getCause() != null ? e.getCause() : e;
+					if (!response.isDone()
+							&& retries < RetryingAsyncClient.MAX_RETRIES
+							&& !API.timeoutException.isInstance(cause)
+							&& RetryingAsyncClient.isRetriable(
+									httpMethod.name(), cause)) {
+						try {
+							send(request, response, retries + 1);
+						} catch (IOException ex) {
+							response.completeExceptionally(ex);
+						}
+						return;
+					}
+					response.completeExceptionally(cause);
+					return;
+				}
+				try {
+					response.complete(new JdkClientResponse(jdkResponse));
+				} catch (IOException ex) {
+					response.completeExceptionally(ex);
+				}
+			});
+		}
+	}
+
+	/**
+	 * Response of a request in flight, cancelling it cancels the exchange
+	 */
+	private static final class ResponseFuture extends
+			CompletableFuture<ClientHttpResponse> implements
+			ListenableFuture<ClientHttpResponse> {
+
+		// Exchange of the last attempt
+		private volatile CompletableFuture<Object> exchange;
+
+		@Override
+		public void addCallback(
+				ListenableFutureCallback<? super ClientHttpResponse> callback) {
+			whenComplete((response, e) -> {
+				if (e == null) {
+					callback.onSuccess(response);
+				} else {
+					callback.onFailure(e instanceof CompletionException
+							&& e.getCause() != null ? e.getCause() : e);
+				}
+			});
+		}
+
+		@Override
+		public boolean cancel(boolean mayInterruptIfRunning) {
+			boolean cancelled = super.cancel(mayInterruptIfRunning);
+			exchange.cancel(mayInterruptIfRunning);
+			return cancelled;
+		}
+	}
+
+	private static final class JdkClientResponse extends
+			AbstractClientHttpResponse {
+
+		private final int statusCode;
+
+		private final HttpHeaders headers = new HttpHeaders();
+
+		private final InputStream body;
+
+		@SuppressWarnings("unchecked")
+		private JdkClientResponse(Object response) throws IOException {
+			statusCode = (Integer) API.invoke(API.responseStatusCode, response);
+			Map<String, List<String>> map = (Map<String, List<String>>) API
+					.invoke(API.headersMap,
+							API.invoke(API.responseHeaders, response));
+			headers.putAll(map);
+			body = (InputStream) API.invoke(API.responseBody, response);
+		}
+
+		@Override
+		public int getRawStatusCode() {
+			return statusCode;
+		}
+
+		/**
+		 * The client doesn't keep the reason phrase, the standard one is used
+		 */
+		@Override
+		public String getStatusText() {
+			for (HttpStatus status : HttpStatus.values()) {
+				if (status.value() == statusCode) {
+					return status.getReasonPhrase();
+				}
+			}
+			return "";
+		}
+
+		@Override
+		public HttpHeaders getHeaders() {
+			return headers;
+		}
+
+		@Override
+		public InputStream getBody() {
+			return body;
+		}
+
+		/**
+		 * The rest of the body is read, so the connection is kept alive
+		 */
+		@Override
+		public void close() {
+			try {
+				byte[] buffer = new byte[4096];
+				while (body.read(buffer) >= 0) {
+					// Drain the body
+				}
+				body.close();
+			} catch (IOException e) {
+				// Connection is closed then
+			}
+		}
+	}
+
+	/**
+	 * Methods of java.net.http, found once
+	 */
+	private static final class Api {
+
+		private Method clientNewBuilder;
+
+		private Method clientConnectTimeout;
+
+		private Method clientExecutor;
+
+		private Method clientBuild;
+
+		private Method clientSendAsync;
+
+		private Method requestNewBuilder;
+
+		private Method requestHeader;
+
+		private Method requestMethod;
+
+		private Method requestTimeout;
+
+		private Method requestBuild;
+
+		private Method publisherOfByteArray;
+
+		private Method publisherNoBody;
+
+		private Method responseStatusCode;
+
+		private Method responseHeaders;
+
+		private Method responseBody;
+
+		private Method headersMap;
+
+		private Object inputStreamHandler;
+
+		private Class<?> timeoutException;
+
+		/**
+		 * @return methods of the API, or null if it isn't present
+		 */
+		private static Api find() {
+			try {
+				Class<?> httpClient = Class.forName("java.net.http.HttpClient");
+				Class<?> clientBuilder = Class
+						.forName("java.net.http.HttpClient$Builder");
+				Class<?> httpRequest = Class
+						.forName("java.net.http.HttpRequest");
+				Class<?> requestBuilder = Class
+						.forName("java.net.http.HttpRequest$Builder");
+				Class<?> bodyPublisher = Class
+						.forName("java.net.http.HttpRequest$BodyPublisher");
+				Class<?> bodyPublishers = Class
+						.forName("java.net.http.HttpRequest$BodyPublishers");
+				Class<?> httpResponse = Class
+						.forName("java.net.http.HttpResponse");
+				Class<?> bodyHandler = Class
+						.forName("java.net.http.HttpResponse$BodyHandler");
+				Class<?> bodyHandlers = Class
+						.forName("java.net.http.HttpResponse$BodyHandlers");
+				Class<?> httpHeaders = Class
+						.forName("java.net.http.HttpHeaders");
+
+				Api api = new Api();
+				api.clientNewBuilder = httpClient.getMethod("newBuilder");
+				api.clientConnectTimeout = clientBuilder.getMethod(
+						"connectTimeout", Duration.class);
+				api.clientExecutor = clientBuilder.getMethod("executor",
+						Executor.class);
+				api.clientBuild = clientBuilder.getMethod("build");
+				api.clientSendAsync = httpClient.getMethod("sendAsync",
+						httpRequest, bodyHandler);
+				api.requestNewBuilder = httpRequest.getMethod("newBuilder",
+						URI.class);
+				api.requestHeader = requestBuilder.getMethod("header",
+						String.class, String.class);
+				api.requestMethod = requestBuilder.getMethod("method",
+						String.class, bodyPublisher);
+				api.requestTimeout = requestBuilder.getMethod("timeout",
+						Duration.class);
+				api.requestBuild = requestBuilder.getMethod("build");
+				api.publisherOfByteArray = bodyPublishers.getMethod(
+						"ofByteArray", byte[].class);
+				api.publisherNoBody = bodyPublishers.getMethod("noBody");
+				api.responseStatusCode = httpResponse.getMethod("statusCode");
+				api.responseHeaders = httpResponse.getMethod("headers");
+				api.responseBody = httpResponse.getMethod("body");
+				api.headersMap = httpHeaders.getMethod("map");
+				api.inputStreamHandler = bodyHandlers.getMethod(
+						"ofInputStream").invoke(null);
+				api.timeoutException = Class
+						.forName("java.net.http.HttpTimeoutException");
+				return api;
+			} catch (ReflectiveOperationException e) {
+				return null;
+			}
+		}
+
+		private Object invoke(Method method, Object target, Object... args)
+				throws IOException {
+			try {
+				return method.invoke(target, args);
+			} catch (InvocationTargetException e) {
+				if (e.getCause() instanceof IOException) {
+					throw (IOException) e.getCause();
+				}
+				if (e.getCause() instanceof RuntimeException) {
+					throw (RuntimeException) e.getCause();
+				}
+				throw new IOException(e.getCause());
+			} catch (IllegalAccessException e) {
+				throw new IOException(e);
+			}
+		}
+	}
+}
@@ -0,0 +1,57 @@
+package com.dron.sender.sequence.transport;
+
+import java.io.IOException;
+
+import org.springframework.http.client.AsyncClientHttpRequestFactory;
+import org.springframework.http.client.ClientHttpRequestFactory;
+
+/**
+ * Transport over the Apache NIO client only. Blocking requests are sent
+ * through the IO reactor too and wait for the response, so all requests
+ * share one pool and a few reactor threads.
+ * 
+ * Like async requests of PooledTransport, DNS and connect times are not
+ * split out. Timeouts and the Deadline of the calling thread are applied.
+ * 
+ * @author Koropatva
+ *
+ */
+public class NioTransport implements Transport {
+
+	// Only the NIO side of the pooled transport is used
+	private final PooledTransport transport;
+
+	private final BlockingRequestFactory requestFactory;
+
+	public NioTransport(TransportConfig config) throws IOException {
+		transport = new PooledTransport(config);
+		requestFactory = new BlockingRequestFactory(
+				transport.getAsyncRequestFactory());
+	}
+
+	@Override
+	public ClientHttpRequestFactory getRequestFactory() {
+		return requestFactory;
+	}
+
+	@Override
+	public AsyncClientHttpRequestFactory getAsyncRequestFactory()
+			throws IOException {
+		return transport.getAsyncRequestFactory();
+	}
+
+	@Override
+	public PoolStatistics getPoolStatistics() {
+		return transport.getAsyncPoolStatistics();
+	}
+
+	@Override
+	public PoolStatistics getAsyncPoolStatistics() {
+		return transport.getAsyncPoolStatistics();
+	}
+
+	@Override
+	public void close() throws IOException {
+		transport.close();
+	}
+}
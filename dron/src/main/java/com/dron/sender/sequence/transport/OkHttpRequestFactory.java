@@ -0,0 +1,296 @@
+package com.dron.sender.sequence.transport;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+
+import org.apache.http.concurrent.Cancellable;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.client.AbstractClientHttpRequest;
+import org.springframework.http.client.AbstractClientHttpResponse;
+import org.springframework.http.client.AsyncClientHttpRequest;
+import org.springframework.http.client.AsyncClientHttpRequestFactory;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.util.concurrent.ListenableFuture;
+import org.springframework.util.concurrent.ListenableFutureCallback;
+
+/**
+ * Spring requests sent with OkHttp. Bodies are buffered, the client of a
+ * request is chosen by its URI when the request is created, so timeouts and
+ * the timing recorder of the calling thread are taken at that moment.
+ * 
+ * @author Koropatva
+ *
+ */
+class OkHttpRequestFactory implements ClientHttpRequestFactory,
+		AsyncClientHttpRequestFactory {
+
+	private static final String CONTENT_LENGTH = "Content-Length";
+
+	private final Function<URI, OkHttpClient> clients;
+
+	OkHttpRequestFactory(Function<URI, OkHttpClient> clients) {
+		this.clients = clients;
+	}
+
+	@Override
+	public ClientHttpRequest createRequest(URI uri, HttpMethod httpMethod) {
+		return new OkHttpClientRequest(clients.apply(uri), uri, httpMethod,
+				TimingRecorder.current());
+	}
+
+	@Override
+	public AsyncClientHttpRequest createAsyncRequest(URI uri,
+			HttpMethod httpMethod) {
+		return new OkHttpAsyncClientRequest(clients.apply(uri), uri,
+				httpMethod, TimingRecorder.current());
+	}
+
+	private static Request createRequest(URI uri, HttpMethod httpMethod,
+			HttpHeaders headers, byte[] body, TimingRecorder recorder) {
+		Request.Builder builder = new Request.Builder().url(uri.toString());
+		for (Map.Entry<String, List<String>> header : headers.entrySet()) {
+			// OkHttp sets the length of the body itself
+			if (CONTENT_LENGTH.equalsIgnoreCase(header.getKey())) {
+				continue;
+			}
+			for (String value : header.getValue()) {
+				builder.addHeader(header.getKey(), value);
+			}
+		}
+		RequestBody requestBody = null;
+		if (body.length > 0 || httpMethod == HttpMethod.POST
+				|| httpMethod == HttpMethod.PUT
+				|| httpMethod == HttpMethod.PATCH) {
+			org.springframework.http.MediaType contentType = headers
+					.getContentType();
+			requestBody = RequestBody.create(contentType == null ? null
+					: MediaType.parse(contentType.toString()), body);
+		}
+		builder.method(httpMethod.name(), requestBody);
+		if (recorder != null) {
+			builder.tag(TimingRecorder.class, recorder);
+		}
+		return builder.build();
+	}
+
+	private static final class OkHttpClientRequest extends
+			AbstractClientHttpRequest {
+
+		private final OkHttpClient client;
+
+		private final URI uri;
+
+		private final HttpMethod httpMethod;
+
+		private final TimingRecorder recorder;
+
+		private final ByteArrayOutputStream body = new ByteArrayOutputStream(
+				256);
+
+		private OkHttpClientRequest(OkHttpClient client, URI uri,
+				HttpMethod httpMethod, TimingRecorder recorder) {
+			this.client = client;
+			this.uri = uri;
+			this.httpMethod = httpMethod;
+			this.recorder = recorder;
+		}
+
+		@Override
+		public HttpMethod getMethod() {
+			return httpMethod;
+		}
+
+		@Override
+		public URI getURI() {
+			return uri;
+		}
+
+		@Override
+		protected OutputStream getBodyInternal(HttpHeaders headers) {
+			return body;
+		}
+
+		@Override
+		protected ClientHttpResponse executeInternal(HttpHeaders headers)
+				throws IOException {
+			Call call = client.newCall(createRequest(uri, httpMethod, headers,
+					body.toByteArray(), recorder));
+			Deadline deadline = Deadline.current();
+			Cancellable cancel = () -> {
+				call.cancel();
+				return true;
+			};
+			if (deadline != null) {
+				deadline.register(cancel);
+			}
+			try {
+				return new OkHttpClientResponse(call.execute());
+			} finally {
+				if (deadline != null) {
+					deadline.unregister(cancel);
+				}
+			}
+		}
+	}
+
+	private static final class OkHttpAsyncClientRequest implements
+			AsyncClientHttpRequest {
+
+		private final OkHttpClient client;
+
+		private final URI uri;
+
+		private final HttpMethod httpMethod;
+
+		private final TimingRecorder recorder;
+
+		private final HttpHeaders headers = new HttpHeaders();
+
+		private final ByteArrayOutputStream body = new ByteArrayOutputStream(
+				256);
+
+		private OkHttpAsyncClientRequest(OkHttpClient client, URI uri,
+				HttpMethod httpMethod, TimingRecorder recorder) {
+			this.client = client;
+			this.uri = uri;
+			this.httpMethod = httpMethod;
+			this.recorder = recorder;
+		}
+
+		@Override
+		public HttpMethod getMethod() {
+			return httpMethod;
+		}
+
+		@Override
+		public URI getURI() {
+			return uri;
+		}
+
+		@Override
+		public HttpHeaders getHeaders() {
+			return headers;
+		}
+
+		@Override
+		public OutputStream getBody() {
+			return body;
+		}
+
+		@Override
+		public ListenableFuture<ClientHttpResponse> executeAsync() {
+			Call call = client.newCall(createRequest(uri, httpMethod, headers,
+					body.toByteArray(), recorder));
+			CallFuture response = new CallFuture(call);
+			call.enqueue(new Callback() {
+				@Override
+				public void onResponse(Call call, Response okResponse) {
+					response.complete(new OkHttpClientResponse(okResponse));
+				}
+
+				@Override
+				public void onFailure(Call call, IOException e) {
+					response.completeExceptionally(e);
+				}
+			});
+			return response;
+		}
+	}
+
+	/**
+	 * Response of an enqueued call, cancelling it cancels the call
+	 */
+	private static final class CallFuture extends
+			CompletableFuture<ClientHttpResponse> implements
+			ListenableFuture<ClientHttpResponse> {
+
+		private final Call call;
+
+		private CallFuture(Call call) {
+			this.call = call;
+		}
+
+		@Override
+		public void addCallback(
+				ListenableFutureCallback<? super ClientHttpResponse> callback) {
+			whenComplete((response, e) -> {
+				if (e == null) {
+					callback.onSuccess(response);
+				} else {
+					callback.onFailure(e instanceof CompletionException
+							&& e.getCause() != null ? e.getCause() : e);
+				}
+			});
+		}
+
+		@Override
+		public boolean cancel(boolean mayInterruptIfRunning) {
+			call.cancel();
+			return super.cancel(mayInterruptIfRunning);
+		}
+	}
+
+	private static final class OkHttpClientResponse extends
+			AbstractClientHttpResponse {
+
+		private final Response response;
+
+		private HttpHeaders headers;
+
+		private OkHttpClientResponse(Response response) {
+			this.response = response;
+		}
+
+		@Override
+		public int getRawStatusCode() {
+			return response.code();
+		}
+
+		@Override
+		public String getStatusText() {
+			return response.message();
+		}
+
+		@Override
+		public HttpHeaders getHeaders() {
+			if (headers == null) {
+				headers = new HttpHeaders();
+				for (String name : response.headers().names()) {
+					for (String value : response.headers(name)) {
+						headers.add(name, value);
+					}
+				}
+			}
+			return headers;
+		}
+
+		@Override
+		public InputStream getBody() {
+			return response.body().byteStream();
+		}
+
+		@Override
+		public void close() {
+			response.close();
+		}
+	}
+}
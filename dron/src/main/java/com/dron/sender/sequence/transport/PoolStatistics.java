@@ -0,0 +1,64 @@
+package com.dron.sender.sequence.transport;
+
+import org.apache.http.pool.PoolStats;
+
+/**
+ * Snapshot of the connection pool state.
+ * 
+ * @author Koropatva
+ *
+ */
+public class PoolStatistics {
+
+	private final int leased;
+
+	private final int idle;
+
+	private final int pending;
+
+	private final int max;
+
+	public PoolStatistics(final int leased, final int idle, final int pending,
+			final int max) {
+		this.leased = leased;
+		this.idle = idle;
+		this.pending = pending;
+		this.max = max;
+	}
+
+	public PoolStatistics(final PoolStats stats) {
+		this(stats.getLeased(), stats.getAvailable(), stats.getPending(),
+				stats.getMax());
+	}
+
+	/**
+	 * @return connections currently used by requests
+	 */
+	public int getLeased() {
+		return leased;
+	}
+
+	/**
+	 * @return kept-alive connections ready for reuse
+	 */
+	public int getIdle() {
+		return idle;
+	}
+
+	/**
+	 * @return requests waiting for a connection
+	 */
+	public int getPending() {
+		return pending;
+	}
+
+	public int getMax() {
+		return max;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("[leased: %d; idle: %d; pending: %d; max: %d]",
+				leased, idle, pending, max);
+	}
+}
@@ -0,0 +1,260 @@
+package com.dron.sender.sequence.transport;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpResponseInterceptor;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.client.protocol.HttpClientContext;
+import org.apache.http.config.Registry;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.conn.socket.PlainConnectionSocketFactory;
+import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.impl.nio.client.HttpAsyncClients;
+import org.apache.http.impl.nio.conn.PoolingNHttpClientConnectionManager;
+import org.apache.http.impl.nio.reactor.DefaultConnectingIOReactor;
+import org.apache.http.nio.reactor.IOReactorException;
+import org.apache.http.protocol.HttpContext;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.HttpComponentsAsyncClientHttpRequestFactory;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+
+/**
+ * Keep-alive connection pools for blocking and NIO requests. Connections are
+ * reused between plugins and sequence runs, idle ones are closed by a
+ * background evictor.
+ * 
+ * Requests sent while a TimingRecorder is bound to the calling thread get
+ * their DNS, connect, TLS and response times recorded. DNS and connect of
+ * NIO requests are done by the IO reactor and are not split out, their time
+ * to first byte counts from sending the request.
+ * 
+ * Requests failed with an I/O error before they were sent, and idempotent
+ * ones, are sent again, NIO ones by RetryingAsyncClient, so a connection
+ * closed by the server just before it is reused doesn't fail them.
+ * 
+ * Requests wait for a pooled connection, connect and read with the timeouts
+ * of the config, RequestTimeouts bound to the calling thread override them.
+ * Blocking requests sent while a Deadline is bound to the calling thread are
+ * aborted when it expires, until their response is closed.
+ * 
+ * @author Koropatva
+ *
+ */
+public class PooledTransport implements Transport {
+
+	private final TransportConfig config;
+
+	private final RequestConfig requestConfig;
+
+	private final PoolingHttpClientConnectionManager connectionManager;
+
+	private final CloseableHttpClient httpClient;
+
+	private final HttpComponentsClientHttpRequestFactory requestFactory;
+
+	private final ScheduledExecutorService evictor;
+
+	// NIO pool is created on the first async request only
+	private PoolingNHttpClientConnectionManager asyncConnectionManager;
+
+	private CloseableHttpAsyncClient httpAsyncClient;
+
+	private HttpComponentsAsyncClientHttpRequestFactory asyncRequestFactory;
+
+	public PooledTransport(TransportConfig config) {
+		this.config = config;
+		requestConfig = RequestConfig.custom()
+				.setConnectTimeout(config.getConnectTimeoutMillis())
+				.setSocketTimeout(config.getReadTimeoutMillis())
+				.setConnectionRequestTimeout(
+						config.getConnectionRequestTimeoutMillis()).build();
+
+		connectionManager = new PoolingHttpClientConnectionManager(
+				socketFactoryRegistry(), new TimingDnsResolver());
+		connectionManager.setMaxTotal(config.getMaxConnectionsTotal());
+		connectionManager.setDefaultMaxPerRoute(config
+				.getMaxConnectionsPerRoute());
+
+		httpClient = HttpClients.custom()
+				.setConnectionManager(connectionManager)
+				.setKeepAliveStrategy(keepAliveStrategy())
+				.setDefaultRequestConfig(requestConfig)
+				.setRequestExecutor(new TimingRequestExecutor()).build();
+		requestFactory = new HttpComponentsClientHttpRequestFactory(httpClient) {
+			@Override
+			protected HttpContext createHttpContext(HttpMethod httpMethod,
+					URI uri) {
+				return createContext();
+			}
+
+			@Override
+			public ClientHttpRequest createRequest(URI uri,
+					HttpMethod httpMethod) throws IOException {
+				try {
+					return DeadlineRequest.wrap(super.createRequest(uri,
+							httpMethod));
+				} finally {
+					// Nothing is kept for the next request if creation failed
+					DeadlineRequest.discard();
+				}
+			}
+
+			@Override
+			protected void postProcessHttpRequest(HttpUriRequest request) {
+				DeadlineRequest.prepare(() -> {
+					request.abort();
+					return true;
+				});
+			}
+		};
+
+		evictor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "dron-connection-evictor");
+			thread.setDaemon(true);
+			return thread;
+		});
+		evictor.scheduleWithFixedDelay(this::evictIdleConnections,
+				config.getEvictionIntervalMillis(),
+				config.getEvictionIntervalMillis(), TimeUnit.MILLISECONDS);
+	}
+
+	@Override
+	public ClientHttpRequestFactory getRequestFactory() {
+		return requestFactory;
+	}
+
+	@Override
+	public synchronized HttpComponentsAsyncClientHttpRequestFactory getAsyncRequestFactory()
+			throws IOReactorException {
+		if (asyncRequestFactory == null) {
+			asyncConnectionManager = new ClosedExchangeConnectionManager(
+					new DefaultConnectingIOReactor());
+			asyncConnectionManager.setMaxTotal(config.getMaxConnectionsTotal());
+			asyncConnectionManager.setDefaultMaxPerRoute(config
+					.getMaxConnectionsPerRoute());
+
+			// The server can close a pooled connection before the evictor
+			// does, requests failed by it are sent again
+			httpAsyncClient = new RetryingAsyncClient(HttpAsyncClients
+					.custom().setConnectionManager(asyncConnectionManager)
+					.setKeepAliveStrategy(keepAliveStrategy())
+					.setDefaultRequestConfig(requestConfig)
+					.addInterceptorFirst(responseHeadersInterceptor()).build());
+			asyncRequestFactory = new HttpComponentsAsyncClientHttpRequestFactory(
+					httpClient, httpAsyncClient) {
+				@Override
+				protected HttpContext createHttpContext(HttpMethod httpMethod,
+						URI uri) {
+					return createContext();
+				}
+			};
+		}
+		return asyncRequestFactory;
+	}
+
+	@Override
+	public PoolStatistics getPoolStatistics() {
+		return new PoolStatistics(connectionManager.getTotalStats());
+	}
+
+	/**
+	 * @return statistics of the NIO pool, or null if no async request was sent
+	 *         yet
+	 */
+	@Override
+	public synchronized PoolStatistics getAsyncPoolStatistics() {
+		if (asyncConnectionManager == null) {
+			return null;
+		}
+		return new PoolStatistics(asyncConnectionManager.getTotalStats());
+	}
+
+	@Override
+	public synchronized void close() throws IOException {
+		evictor.shutdownNow();
+		if (httpAsyncClient != null) {
+			httpAsyncClient.close();
+		}
+		httpClient.close();
+	}
+
+	private void evictIdleConnections() {
+		connectionManager.closeExpiredConnections();
+		connectionManager.closeIdleConnections(config.getIdleEvictionMillis(),
+				TimeUnit.MILLISECONDS);
+		synchronized (this) {
+			if (asyncConnectionManager != null) {
+				asyncConnectionManager.closeExpiredConnections();
+				asyncConnectionManager.closeIdleConnections(
+						config.getIdleEvictionMillis(), TimeUnit.MILLISECONDS);
+			}
+		}
+	}
+
+	/**
+	 * @return context with the timing recorder and timeouts of the current
+	 *         thread, or null if the request uses the defaults
+	 */
+	private HttpContext createContext() {
+		TimingRecorder recorder = TimingRecorder.current();
+		RequestTimeouts timeouts = RequestTimeouts.current();
+		if (recorder == null && timeouts == null) {
+			return null;
+		}
+		HttpClientContext context = HttpClientContext.create();
+		if (recorder != null) {
+			context.setAttribute(TimingRecorder.ATTRIBUTE, recorder);
+		}
+		context.setRequestConfig(timeouts == null ? requestConfig : timeouts
+				.apply(requestConfig));
+		return context;
+	}
+
+	private static Registry<ConnectionSocketFactory> socketFactoryRegistry() {
+		return RegistryBuilder
+				.<ConnectionSocketFactory> create()
+				.register(
+						"http",
+						new TimingSocketFactory(PlainConnectionSocketFactory
+								.getSocketFactory()))
+				.register(
+						"https",
+						new TimingSocketFactory(SSLConnectionSocketFactory
+								.getSocketFactory())).build();
+	}
+
+	private static HttpResponseInterceptor responseHeadersInterceptor() {
+		return (response, context) -> {
+			TimingRecorder recorder = TimingRecorder.from(context);
+			if (recorder != null) {
+				recorder.markHeaders();
+			}
+		};
+	}
+
+	private ConnectionKeepAliveStrategy keepAliveStrategy() {
+		return new DefaultConnectionKeepAliveStrategy() {
+			@Override
+			public long getKeepAliveDuration(HttpResponse response,
+					HttpContext context) {
+				long duration = super.getKeepAliveDuration(response, context);
+				return duration > 0 ? duration : config.getKeepAliveMillis();
+			}
+		};
+	}
+}
@@ -0,0 +1,68 @@
+package com.dron.sender.sequence.transport;
+
+import org.apache.http.client.config.RequestConfig;
+
+/**
+ * Timeouts of one request, overriding the defaults of the transport. Like
+ * TimingRecorder it is bound to the calling thread while the request is
+ * created.
+ * 
+ * @author Koropatva
+ *
+ */
+public final class RequestTimeouts {
+
+	private static final ThreadLocal<RequestTimeouts> CURRENT = new ThreadLocal<RequestTimeouts>();
+
+	private final Integer connectTimeoutMillis;
+
+	private final Integer readTimeoutMillis;
+
+	private RequestTimeouts(Integer connectTimeoutMillis,
+			Integer readTimeoutMillis) {
+		this.connectTimeoutMillis = connectTimeoutMillis;
+		this.readTimeoutMillis = readTimeoutMillis;
+	}
+
+	/**
+	 * @return timeouts, or null if both are null and the defaults are used
+	 */
+	public static RequestTimeouts of(Integer connectTimeoutMillis,
+			Integer readTimeoutMillis) {
+		if (connectTimeoutMillis == null && readTimeoutMillis == null) {
+			return null;
+		}
+		return new RequestTimeouts(connectTimeoutMillis, readTimeoutMillis);
+	}
+
+	public Integer getConnectTimeoutMillis() {
+		return connectTimeoutMillis;
+	}
+
+	public Integer getReadTimeoutMillis() {
+		return readTimeoutMillis;
+	}
+
+	public void bind() {
+		CURRENT.set(this);
+	}
+
+	public void unbind() {
+		CURRENT.remove();
+	}
+
+	static RequestTimeouts current() {
+		return CURRENT.get();
+	}
+
+	RequestConfig apply(RequestConfig defaults) {
+		RequestConfig.Builder builder = RequestConfig.copy(defaults);
+		if (connectTimeoutMillis != null) {
+			builder.setConnectTimeout(connectTimeoutMillis);
+		}
+		if (readTimeoutMillis != null) {
+			builder.setSocketTimeout(readTimeoutMillis);
+		}
+		return builder.build();
+	}
+}
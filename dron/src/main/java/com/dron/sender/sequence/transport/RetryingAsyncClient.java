@@ -0,0 +1,241 @@
+package com.dron.sender.sequence.transport;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.ConnectException;
+import java.net.UnknownHostException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.Future;
+
+import javax.net.ssl.SSLException;
+
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpEntityEnclosingRequest;
+import org.apache.http.HttpException;
+import org.apache.http.HttpHost;
+import org.apache.http.HttpRequest;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.concurrent.BasicFuture;
+import org.apache.http.concurrent.FutureCallback;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.nio.ContentEncoder;
+import org.apache.http.nio.IOControl;
+import org.apache.http.nio.client.methods.HttpAsyncMethods;
+import org.apache.http.nio.protocol.HttpAsyncRequestProducer;
+import org.apache.http.nio.protocol.HttpAsyncResponseConsumer;
+import org.apache.http.protocol.HttpContext;
+
+/**
+ * NIO client sending requests again when they fail with an I/O error, like
+ * the retry handler of the blocking client does: requests that weren't sent
+ * and sent idempotent ones. A pooled keep-alive connection closed by the
+ * server just before it is leased or written fails the request, it is sent
+ * again on another connection.
+ *
+ * Timeouts, connection failures and aborted requests are not retried.
+ *
+ * @author Koropatva
+ *
+ */
+class RetryingAsyncClient extends CloseableHttpAsyncClient {
+
+	// Same as the retries of the blocking client
+	static final int MAX_RETRIES = 3;
+
+	private static final Set<String> IDEMPOTENT_METHODS = new HashSet<String>(
+			Arrays.asList("GET", "HEAD", "OPTIONS", "TRACE", "PUT", "DELETE"));
+
+	private final CloseableHttpAsyncClient client;
+
+	RetryingAsyncClient(CloseableHttpAsyncClient client) {
+		this.client = client;
+	}
+
+	@Override
+	public boolean isRunning() {
+		return client.isRunning();
+	}
+
+	@Override
+	public void start() {
+		client.start();
+	}
+
+	@Override
+	public void close() throws IOException {
+		client.close();
+	}
+
+	@Override
+	public <T> Future<T> execute(HttpAsyncRequestProducer requestProducer,
+			HttpAsyncResponseConsumer<T> responseConsumer,
+			HttpContext context, FutureCallback<T> callback) {
+		return client.execute(requestProducer, responseConsumer, context,
+				callback);
+	}
+
+	@Override
+	public Future<HttpResponse> execute(HttpUriRequest request,
+			HttpContext context, FutureCallback<HttpResponse> callback) {
+		RetryingFuture future = new RetryingFuture(request, context, callback);
+		future.send();
+		return future;
+	}
+
+	static boolean isRetriable(HttpUriRequest request, boolean sent,
+			Exception e) {
+		if (request.isAborted()
+				|| !isRetriable(sent ? request.getMethod() : null, e)) {
+			return false;
+		}
+		if (request instanceof HttpEntityEnclosingRequest) {
+			HttpEntity entity = ((HttpEntityEnclosingRequest) request)
+					.getEntity();
+			return entity == null || entity.isRepeatable();
+		}
+		return true;
+	}
+
+	/**
+	 * @param method
+	 *            method of a sent request, null if it wasn't sent
+	 * @return true if a request with a repeatable body can be sent again
+	 *         after the error
+	 */
+	static boolean isRetriable(String method, Throwable e) {
+		return e instanceof IOException
+				&& !(e instanceof InterruptedIOException
+						|| e instanceof UnknownHostException
+						|| e instanceof ConnectException || e instanceof SSLException)
+				&& (method == null || IDEMPOTENT_METHODS.contains(method));
+	}
+
+	private final class RetryingFuture extends BasicFuture<HttpResponse> {
+
+		private final HttpUriRequest request;
+
+		private final HttpContext context;
+
+		private volatile int retries;
+
+		// Attempt in flight, it is cancelled with this future
+		private volatile Future<HttpResponse> attempt;
+
+		private RetryingFuture(HttpUriRequest request, HttpContext context,
+				FutureCallback<HttpResponse> callback) {
+			super(callback);
+			this.request = request;
+			this.context = context;
+		}
+
+		private void send() {
+			int retry = retries;
+			SentProducer producer = new SentProducer(
+					HttpAsyncMethods.create(request));
+			Future<HttpResponse> sent = client.execute(producer,
+					HttpAsyncMethods.createConsumer(), context,
+					new FutureCallback<HttpResponse>() {
+						@Override
+						public void completed(HttpResponse response) {
+							RetryingFuture.this.completed(response);
+						}
+
+						@Override
+						public void failed(Exception e) {
+							if (!isDone() && retries < MAX_RETRIES
+									&& isRetriable(request, producer.sent, e)) {
+								retries++;
+								send();
+							} else {
+								RetryingFuture.this.failed(e);
+							}
+						}
+
+						@Override
+						public void cancelled() {
+							RetryingFuture.this.cancel();
+						}
+					});
+			// A failed attempt can be retried before execute returns, the
+			// later attempt is kept then
+			if (retry == retries) {
+				attempt = sent;
+				if (isCancelled()) {
+					sent.cancel(true);
+				}
+			}
+		}
+
+		@Override
+		public boolean cancel(boolean mayInterruptIfRunning) {
+			boolean cancelled = super.cancel(mayInterruptIfRunning);
+			Future<HttpResponse> current = attempt;
+			if (current != null) {
+				current.cancel(mayInterruptIfRunning);
+			}
+			return cancelled;
+		}
+	}
+
+	/**
+	 * Producer knowing if its request was sent, it is completed once the
+	 * whole request is written to the connection. It is generated before the
+	 * connection is leased already.
+	 */
+	private static final class SentProducer implements
+			HttpAsyncRequestProducer {
+
+		private final HttpAsyncRequestProducer producer;
+
+		private volatile boolean sent;
+
+		private SentProducer(HttpAsyncRequestProducer producer) {
+			this.producer = producer;
+		}
+
+		@Override
+		public HttpHost getTarget() {
+			return producer.getTarget();
+		}
+
+		@Override
+		public HttpRequest generateRequest() throws IOException, HttpException {
+			return producer.generateRequest();
+		}
+
+		@Override
+		public void produceContent(ContentEncoder encoder, IOControl ioctrl)
+				throws IOException {
+			producer.produceContent(encoder, ioctrl);
+		}
+
+		@Override
+		public void requestCompleted(HttpContext context) {
+			sent = true;
+			producer.requestCompleted(context);
+		}
+
+		@Override
+		public void failed(Exception ex) {
+			producer.failed(ex);
+		}
+
+		@Override
+		public boolean isRepeatable() {
+			return producer.isRepeatable();
+		}
+
+		@Override
+		public void resetRequest() throws IOException {
+			producer.resetRequest();
+		}
+
+		@Override
+		public void close() throws IOException {
+			producer.close();
+		}
+	}
+}
@@ -0,0 +1,31 @@
+package com.dron.sender.sequence.transport;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+
+import org.apache.http.conn.DnsResolver;
+import org.apache.http.impl.conn.SystemDefaultDnsResolver;
+
+/**
+ * Records DNS resolution time to the recorder bound to the resolving thread.
+ * 
+ * @author Koropatva
+ *
+ */
+class TimingDnsResolver implements DnsResolver {
+
+	private final DnsResolver delegate = SystemDefaultDnsResolver.INSTANCE;
+
+	@Override
+	public InetAddress[] resolve(String host) throws UnknownHostException {
+		TimingRecorder recorder = TimingRecorder.current();
+		long start = System.nanoTime();
+		try {
+			return delegate.resolve(host);
+		} finally {
+			if (recorder != null) {
+				recorder.addDns(System.nanoTime() - start);
+			}
+		}
+	}
+}
@@ -0,0 +1,91 @@
+package com.dron.sender.sequence.transport;
+
+import org.apache.http.protocol.HttpContext;
+
+import com.dron.sender.sequence.models.RequestTimings;
+
+/**
+ * Collects phase times of one request. The recorder is bound to the calling
+ * thread while the request is created, the request factory puts it into the
+ * HTTP context, so phases done by the IO reactor are found too.
+ * 
+ * @author Koropatva
+ *
+ */
+public final class TimingRecorder {
+
+	static final String ATTRIBUTE = "dron.timing.recorder";
+
+	private static final ThreadLocal<TimingRecorder> CURRENT = new ThreadLocal<TimingRecorder>();
+
+	private final long start = System.nanoTime();
+
+	// Written by the thread doing the phase, read when the request is done
+	private volatile long dns;
+
+	private volatile long connect;
+
+	private volatile long tls;
+
+	private volatile long sent;
+
+	private volatile long headers;
+
+	/**
+	 * Binds the recorder to the current thread until unbind() is called
+	 */
+	public void bind() {
+		CURRENT.set(this);
+	}
+
+	public void unbind() {
+		CURRENT.remove();
+	}
+
+	/**
+	 * Fills the timings, the request is done at this moment
+	 */
+	public void finish(RequestTimings timings) {
+		long end = System.nanoTime();
+		timings.setDnsNanos(dns);
+		timings.setConnectNanos(connect);
+		timings.setTlsNanos(tls);
+		if (headers != 0) {
+			long requestStart = sent != 0 ? sent : start + dns + connect + tls;
+			timings.setTtfbNanos(Math.max(0, headers - requestStart));
+			timings.setDownloadNanos(end - headers);
+		}
+		timings.setTotalNanos(end - start);
+	}
+
+	static TimingRecorder current() {
+		return CURRENT.get();
+	}
+
+	static TimingRecorder from(HttpContext context) {
+		Object recorder = context == null ? null : context
+				.getAttribute(ATTRIBUTE);
+		return recorder instanceof TimingRecorder ? (TimingRecorder) recorder
+				: null;
+	}
+
+	void addDns(long nanos) {
+		dns += nanos;
+	}
+
+	void addConnect(long nanos) {
+		connect += nanos;
+	}
+
+	void addTls(long nanos) {
+		tls += nanos;
+	}
+
+	void markSent() {
+		sent = System.nanoTime();
+	}
+
+	void markHeaders() {
+		headers = System.nanoTime();
+	}
+}
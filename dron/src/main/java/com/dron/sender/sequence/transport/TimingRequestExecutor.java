@@ -0,0 +1,44 @@
+package com.dron.sender.sequence.transport;
+
+import java.io.IOException;
+
+import org.apache.http.HttpClientConnection;
+import org.apache.http.HttpException;
+import org.apache.http.HttpRequest;
+import org.apache.http.HttpResponse;
+import org.apache.http.protocol.HttpContext;
+import org.apache.http.protocol.HttpRequestExecutor;
+
+/**
+ * Marks when a blocking request is written to an open connection and when
+ * the response headers are read.
+ * 
+ * @author Koropatva
+ *
+ */
+class TimingRequestExecutor extends HttpRequestExecutor {
+
+	@Override
+	protected HttpResponse doSendRequest(HttpRequest request,
+			HttpClientConnection connection, HttpContext context)
+			throws IOException, HttpException {
+		TimingRecorder recorder = TimingRecorder.from(context);
+		if (recorder != null) {
+			recorder.markSent();
+		}
+		return super.doSendRequest(request, connection, context);
+	}
+
+	@Override
+	protected HttpResponse doReceiveResponse(HttpRequest request,
+			HttpClientConnection connection, HttpContext context)
+			throws HttpException, IOException {
+		HttpResponse response = super.doReceiveResponse(request, connection,
+				context);
+		TimingRecorder recorder = TimingRecorder.from(context);
+		if (recorder != null) {
+			recorder.markHeaders();
+		}
+		return response;
+	}
+}
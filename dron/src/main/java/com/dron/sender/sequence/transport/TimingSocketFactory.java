@@ -0,0 +1,80 @@
+package com.dron.sender.sequence.transport;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+
+import org.apache.http.HttpHost;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.conn.socket.LayeredConnectionSocketFactory;
+import org.apache.http.protocol.HttpContext;
+
+/**
+ * Records connect and TLS handshake times of new connections. For a layered
+ * factory the TCP connect is done here, so it is timed apart from the
+ * handshake.
+ * 
+ * @author Koropatva
+ *
+ */
+class TimingSocketFactory implements LayeredConnectionSocketFactory {
+
+	private final ConnectionSocketFactory delegate;
+
+	TimingSocketFactory(ConnectionSocketFactory delegate) {
+		this.delegate = delegate;
+	}
+
+	@Override
+	public Socket createSocket(HttpContext context) throws IOException {
+		return delegate.createSocket(context);
+	}
+
+	@Override
+	public Socket connectSocket(int connectTimeout, Socket socket,
+			HttpHost host, InetSocketAddress remoteAddress,
+			InetSocketAddress localAddress, HttpContext context)
+			throws IOException {
+		TimingRecorder recorder = TimingRecorder.from(context);
+		if (!(delegate instanceof LayeredConnectionSocketFactory)) {
+			long start = System.nanoTime();
+			Socket connected = delegate.connectSocket(connectTimeout, socket,
+					host, remoteAddress, localAddress, context);
+			if (recorder != null) {
+				recorder.addConnect(System.nanoTime() - start);
+			}
+			return connected;
+		}
+
+		Socket plain = socket != null ? socket : createSocket(context);
+		if (localAddress != null) {
+			plain.bind(localAddress);
+		}
+		long start = System.nanoTime();
+		try {
+			plain.connect(remoteAddress, connectTimeout);
+		} catch (IOException e) {
+			try {
+				plain.close();
+			} catch (IOException ignore) {
+				// Connect error is more important
+			}
+			throw e;
+		}
+		long connected = System.nanoTime();
+		Socket secure = createLayeredSocket(plain, host.getHostName(),
+				remoteAddress.getPort(), context);
+		if (recorder != null) {
+			recorder.addConnect(connected - start);
+			recorder.addTls(System.nanoTime() - connected);
+		}
+		return secure;
+	}
+
+	@Override
+	public Socket createLayeredSocket(Socket socket, String target, int port,
+			HttpContext context) throws IOException {
+		return ((LayeredConnectionSocketFactory) delegate).createLayeredSocket(
+				socket, target, port, context);
+	}
+}
@@ -0,0 +1,40 @@
+package com.dron.sender.sequence.transport;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+import org.springframework.http.client.AsyncClientHttpRequestFactory;
+import org.springframework.http.client.ClientHttpRequestFactory;
+
+/**
+ * HTTP client backend of RequestRunner. A transport creates blocking and
+ * non-blocking requests of one client library and owns its connections.
+ * 
+ * Requests are created on the calling thread, so a transport can read
+ * TimingRecorder, RequestTimeouts and Deadline bound to it. Transports use
+ * them as far as their client allows.
+ * 
+ * @author Koropatva
+ *
+ */
+public interface Transport extends Closeable {
+
+	ClientHttpRequestFactory getRequestFactory();
+
+	/**
+	 * Non-blocking side of the transport, it can be created on the first call
+	 */
+	AsyncClientHttpRequestFactory getAsyncRequestFactory() throws IOException;
+
+	/**
+	 * @return statistics of the pool of blocking requests, or null if the
+	 *         transport doesn't pool connections itself
+	 */
+	PoolStatistics getPoolStatistics();
+
+	/**
+	 * @return statistics of the pool of async requests, or null if there is
+	 *         no such pool or no async request was sent yet
+	 */
+	PoolStatistics getAsyncPoolStatistics();
+}
@@ -0,0 +1,125 @@
+package com.dron.sender.sequence.transport;
+
+import com.dron.sender.sequence.enums.TransportType;
+
+/**
+ * Settings of the HTTP transports used by RequestRunner. Defaults are tuned
+ * for repeated sequence runs against a small set of hosts.
+ * 
+ * @author Koropatva
+ *
+ */
+public class TransportConfig {
+
+	public static final int DEFAULT_MAX_CONNECTIONS_TOTAL = 200;
+
+	public static final int DEFAULT_MAX_CONNECTIONS_PER_ROUTE = 20;
+
+	public static final long DEFAULT_KEEP_ALIVE_MILLIS = 30000;
+
+	public static final long DEFAULT_IDLE_EVICTION_MILLIS = 30000;
+
+	public static final long DEFAULT_EVICTION_INTERVAL_MILLIS = 5000;
+
+	public static final int DEFAULT_CONNECT_TIMEOUT_MILLIS = 10000;
+
+	public static final int DEFAULT_READ_TIMEOUT_MILLIS = 60000;
+
+	public static final int DEFAULT_CONNECTION_REQUEST_TIMEOUT_MILLIS = 10000;
+
+	// Used by runs that don't choose a transport
+	private TransportType transportType = TransportType.HTTP_COMPONENTS;
+
+	private int maxConnectionsTotal = DEFAULT_MAX_CONNECTIONS_TOTAL;
+
+	private int maxConnectionsPerRoute = DEFAULT_MAX_CONNECTIONS_PER_ROUTE;
+
+	// Used when the server doesn't send a Keep-Alive timeout
+	private long keepAliveMillis = DEFAULT_KEEP_ALIVE_MILLIS;
+
+	// Connections idle longer than this are closed by the evictor
+	private long idleEvictionMillis = DEFAULT_IDLE_EVICTION_MILLIS;
+
+	private long evictionIntervalMillis = DEFAULT_EVICTION_INTERVAL_MILLIS;
+
+	private int connectTimeoutMillis = DEFAULT_CONNECT_TIMEOUT_MILLIS;
+
+	// Longest wait for data of a response
+	private int readTimeoutMillis = DEFAULT_READ_TIMEOUT_MILLIS;
+
+	// Longest wait for a connection from the pool
+	private int connectionRequestTimeoutMillis = DEFAULT_CONNECTION_REQUEST_TIMEOUT_MILLIS;
+
+	public TransportType getTransportType() {
+		return transportType;
+	}
+
+	public void setTransportType(TransportType transportType) {
+		this.transportType = transportType;
+	}
+
+	public int getMaxConnectionsTotal() {
+		return maxConnectionsTotal;
+	}
+
+	public void setMaxConnectionsTotal(int maxConnectionsTotal) {
+		this.maxConnectionsTotal = maxConnectionsTotal;
+	}
+
+	public int getMaxConnectionsPerRoute() {
+		return maxConnectionsPerRoute;
+	}
+
+	public void setMaxConnectionsPerRoute(int maxConnectionsPerRoute) {
+		this.maxConnectionsPerRoute = maxConnectionsPerRoute;
+	}
+
+	public long getKeepAliveMillis() {
+		return keepAliveMillis;
+	}
+
+	public void setKeepAliveMillis(long keepAliveMillis) {
+		this.keepAliveMillis = keepAliveMillis;
+	}
+
+	public long getIdleEvictionMillis() {
+		return idleEvictionMillis;
+	}
+
+	public void setIdleEvictionMillis(long idleEvictionMillis) {
+		this.idleEvictionMillis = idleEvictionMillis;
+	}
+
+	public long getEvictionIntervalMillis() {
+		return evictionIntervalMillis;
+	}
+
+	public void setEvictionIntervalMillis(long evictionIntervalMillis) {
+		this.evictionIntervalMillis = evictionIntervalMillis;
+	}
+
+	public int getConnectTimeoutMillis() {
+		return connectTimeoutMillis;
+	}
+
+	public void setConnectTimeoutMillis(int connectTimeoutMillis) {
+		this.connectTimeoutMillis = connectTimeoutMillis;
+	}
+
+	public int getReadTimeoutMillis() {
+		return readTimeoutMillis;
+	}
+
+	public void setReadTimeoutMillis(int readTimeoutMillis) {
+		this.readTimeoutMillis = readTimeoutMillis;
+	}
+
+	public int getConnectionRequestTimeoutMillis() {
+		return connectionRequestTimeoutMillis;
+	}
+
+	public void setConnectionRequestTimeoutMillis(
+			int connectionRequestTimeoutMillis) {
+		this.connectionRequestTimeoutMillis = connectionRequestTimeoutMillis;
+	}
+}
@@ -0,0 +1,45 @@
+package com.dron.sender.sequence.transport;
+
+import java.io.IOException;
+
+import com.dron.sender.sequence.enums.TransportType;
+
+/**
+ * Creates transports by type.
+ * 
+ * @author Koropatva
+ *
+ */
+public final class Transports {
+
+	private Transports() {
+	}
+
+	/**
+	 * @return true if the transport can be created on this JVM
+	 */
+	public static boolean isSupported(TransportType type) {
+		return type != TransportType.JDK_HTTP_CLIENT
+				|| JdkHttpClientTransport.isSupported();
+	}
+
+	/**
+	 * @throws IOException
+	 *             if the transport can't be created, like an unsupported one
+	 */
+	public static Transport create(TransportType type, TransportConfig config)
+			throws IOException {
+		switch (type) {
+			case URL_CONNECTION:
+				return new UrlConnectionTransport(config);
+			case NIO:
+				return new NioTransport(config);
+			case HTTP2:
+				return new Http2Transport(config);
+			case JDK_HTTP_CLIENT:
+				return new JdkHttpClientTransport(config);
+			default:
+				return new PooledTransport(config);
+		}
+	}
+}
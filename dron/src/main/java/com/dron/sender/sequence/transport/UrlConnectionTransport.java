@@ -0,0 +1,124 @@
+package com.dron.sender.sequence.transport;
+
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.URI;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.core.task.support.TaskExecutorAdapter;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.client.AsyncClientHttpRequest;
+import org.springframework.http.client.AsyncClientHttpRequestFactory;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+
+/**
+ * Transport over the JDK HttpURLConnection. Keep-alive connections are
+ * cached by the JDK, their number per host is set by the "http.maxConnections"
+ * system property. Async requests block a thread of a pool limited by the
+ * total connections of the config.
+ * 
+ * Only the total time of a request is recorded. Blocking requests sent while
+ * a Deadline is bound to the calling thread are disconnected when it
+ * expires, until their response is closed.
+ * 
+ * @author Koropatva
+ *
+ */
+public class UrlConnectionTransport implements Transport {
+
+	private final ThreadPoolExecutor executor;
+
+	private final SimpleClientHttpRequestFactory requestFactory;
+
+	public UrlConnectionTransport(TransportConfig config) {
+		executor = new ThreadPoolExecutor(config.getMaxConnectionsTotal(),
+				config.getMaxConnectionsTotal(), config.getKeepAliveMillis(),
+				TimeUnit.MILLISECONDS, new LinkedBlockingQueue<Runnable>(),
+				runnable -> {
+					Thread thread = new Thread(runnable, "dron-url-connection");
+					thread.setDaemon(true);
+					return thread;
+				});
+		executor.allowCoreThreadTimeOut(true);
+
+		requestFactory = new SimpleClientHttpRequestFactory() {
+			@Override
+			protected void prepareConnection(HttpURLConnection connection,
+					String httpMethod) throws IOException {
+				super.prepareConnection(connection, httpMethod);
+				prepare(connection);
+			}
+
+			@Override
+			public ClientHttpRequest createRequest(URI uri,
+					HttpMethod httpMethod) throws IOException {
+				try {
+					return DeadlineRequest.wrap(super.createRequest(uri,
+							httpMethod));
+				} finally {
+					DeadlineRequest.discard();
+				}
+			}
+
+			@Override
+			public AsyncClientHttpRequest createAsyncRequest(URI uri,
+					HttpMethod httpMethod) throws IOException {
+				try {
+					return super.createAsyncRequest(uri, httpMethod);
+				} finally {
+					// Async requests are cancelled through their future
+					DeadlineRequest.discard();
+				}
+			}
+		};
+		requestFactory.setConnectTimeout(config.getConnectTimeoutMillis());
+		requestFactory.setReadTimeout(config.getReadTimeoutMillis());
+		requestFactory.setTaskExecutor(new TaskExecutorAdapter(executor));
+	}
+
+	@Override
+	public ClientHttpRequestFactory getRequestFactory() {
+		return requestFactory;
+	}
+
+	@Override
+	public AsyncClientHttpRequestFactory getAsyncRequestFactory() {
+		return requestFactory;
+	}
+
+	@Override
+	public PoolStatistics getPoolStatistics() {
+		return null;
+	}
+
+	@Override
+	public PoolStatistics getAsyncPoolStatistics() {
+		return null;
+	}
+
+	@Override
+	public void close() {
+		executor.shutdownNow();
+	}
+
+	private static void prepare(HttpURLConnection connection) {
+		RequestTimeouts timeouts = RequestTimeouts.current();
+		if (timeouts != null) {
+			if (timeouts.getConnectTimeoutMillis() != null) {
+				connection.setConnectTimeout(timeouts.getConnectTimeoutMillis());
+			}
+			if (timeouts.getReadTimeoutMillis() != null) {
+				connection.setReadTimeout(timeouts.getReadTimeoutMillis());
+			}
+		}
+		// Closes the socket, a blocked read fails at once
+		DeadlineRequest.prepare(() -> {
+			connection.disconnect();
+			return true;
+		});
+	}
+}
@@ -0,0 +1,160 @@
+package com.dron.sender.jfr;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.client.UnknownHttpStatusCodeException;
+
+import com.dron.sender.sequence.models.FutureParam;
+import com.dron.sender.sequence.models.Plugin;
+import com.dron.sender.sequence.models.Sequence;
+import com.dron.sender.sequence.services.FutureParamService;
+import com.dron.sender.sequence.services.SequenceRunner;
+import com.sun.net.httpserver.HttpServer;
+
+public class DronEventsTest {
+
+	private static final byte[] RESPONSE = "{\"id\":\"42\"}".getBytes();
+
+	@Before
+	public void flightRecorderIsAvailable() {
+		Assume.assumeTrue(DronEvents.isAvailable());
+	}
+
+	@Test
+	public void disabledEventIsNotStarted() {
+		assertThat(DronEvents.beginPlugin()).isNull();
+	}
+
+	@Test
+	public void statusNeverFails() {
+		assertThat(
+				DronEvents.status(null, new UnknownHttpStatusCodeException(
+						599, "", null, null, null))).isEqualTo(599);
+		assertThat(DronEvents.status(null, new IOException())).isEqualTo(0);
+		assertThat(
+				DronEvents.status(new ResponseEntity<String>((HttpStatus) null),
+						null)).isEqualTo(0);
+	}
+
+	@Test
+	public void paramExtractionEvent() throws Exception {
+		List<FutureParam> futureParams = new ArrayList<FutureParam>();
+		futureParams.add(new FutureParam("{{id}}", "user..id"));
+		Map<String, String> params = new ConcurrentHashMap<String, String>();
+		String response = "{\"user\":{\"id\":7}}";
+
+		List<RecordedEvent> events = record(
+				"com.dron.sender.ParamExtraction",
+				() -> FutureParamService.getInstance().fillFutureParams(
+						response, futureParams, params::put));
+
+		assertThat(events).hasSize(1);
+		assertThat(events.get(0).getInt("futureParams")).isEqualTo(1);
+		assertThat(events.get(0).getInt("values")).isEqualTo(1);
+		assertThat(events.get(0).getLong("responseBytes")).isEqualTo(
+				response.length());
+	}
+
+	@Test
+	public void sequenceAndPluginEvents() throws Exception {
+		HttpServer server = HttpServer.create(new InetSocketAddress(
+				"127.0.0.1", 0), 0);
+		server.createContext("/", exchange -> {
+			exchange.sendResponseHeaders(200, RESPONSE.length);
+			try (OutputStream body = exchange.getResponseBody()) {
+				body.write(RESPONSE);
+			}
+		});
+		server.start();
+		try {
+			Sequence sequence = new Sequence();
+			sequence.setName("orders");
+			Plugin plugin = new Plugin();
+			plugin.setName("login");
+			plugin.setUrl("http://127.0.0.1:" + server.getAddress().getPort()
+					+ "/login");
+			sequence.getPlugins().add(plugin);
+			sequence.getOrder().add(plugin.getId());
+
+			List<RecordedEvent> events = record("com.dron.sender.",
+					() -> new SequenceRunner(sequence).runSequence());
+
+			RecordedEvent pluginEvent = find(events, "com.dron.sender.Plugin");
+			assertThat(pluginEvent.getString("pluginName")).isEqualTo("login");
+			assertThat(pluginEvent.getString("urlTemplate")).endsWith(
+					"/login");
+			assertThat(pluginEvent.getBoolean("success")).isTrue();
+			assertThat(pluginEvent.getInt("status")).isEqualTo(200);
+			assertThat(pluginEvent.getLong("responseBytes")).isEqualTo(
+					RESPONSE.length);
+
+			RecordedEvent sequenceEvent = find(events,
+					"com.dron.sender.Sequence");
+			assertThat(sequenceEvent.getString("sequenceName")).isEqualTo(
+					"orders");
+			assertThat(sequenceEvent.getInt("plugins")).isEqualTo(1);
+			assertThat(sequenceEvent.getInt("failedPlugins")).isEqualTo(0);
+			assertThat(find(events, "com.dron.sender.TemplateRender"))
+					.isNotNull();
+		} finally {
+			server.stop(0);
+		}
+	}
+
+	private interface Action {
+		void run() throws Exception;
+	}
+
+	private static List<RecordedEvent> record(String eventPrefix,
+			Action action) throws Exception {
+		Path file = Files.createTempFile("dron", ".jfr");
+		try (Recording recording = new Recording()) {
+			for (String name : new String[] { "Sequence", "Plugin",
+					"TemplateRender", "ParamExtraction" }) {
+				recording.enable("com.dron.sender." + name);
+			}
+			recording.start();
+			action.run();
+			recording.stop();
+			recording.dump(file);
+
+			List<RecordedEvent> events = new ArrayList<RecordedEvent>();
+			for (RecordedEvent event : RecordingFile.readAllEvents(file)) {
+				if (event.getEventType().getName().startsWith(eventPrefix)) {
+					events.add(event);
+				}
+			}
+			return events;
+		} finally {
+			Files.deleteIfExists(file);
+		}
+	}
+
+	private static RecordedEvent find(List<RecordedEvent> events, String name) {
+		for (RecordedEvent event : events) {
+			if (event.getEventType().getName().equals(name)) {
+				return event;
+			}
+		}
+		throw new AssertionError(name + " is not recorded");
+	}
+}
@@ -0,0 +1,82 @@
+package com.dron.sender.load;
+
+import static org.fest.assertions.Assertions.assertThat;
+import static org.fest.assertions.Delta.delta;
+
+import org.junit.Test;
+
+public class RateProfileTest {
+
+	@Test
+	public void constant() {
+		RateProfile profile = RateProfile.constant(500, 1000);
+
+		assertThat(profile.getDurationMillis()).isEqualTo(1000);
+		assertThat(profile.getRate(0)).isEqualTo(500);
+		assertThat(profile.getRate(999)).isEqualTo(500);
+		assertThat(profile.getRate(1000)).isEqualTo(0);
+	}
+
+	@Test
+	public void ramp() {
+		RateProfile profile = RateProfile.ramp(100, 300, 1000);
+
+		assertThat(profile.getRate(0)).isEqualTo(100);
+		assertThat(profile.getRate(500)).isEqualTo(200);
+	}
+
+	@Test
+	public void step() {
+		RateProfile profile = RateProfile.step(1000, 10, 20, 0, 40);
+
+		assertThat(profile.getDurationMillis()).isEqualTo(4000);
+		assertThat(profile.getRate(1500)).isEqualTo(20);
+		assertThat(profile.getRate(2500)).isEqualTo(0);
+		assertThat(profile.getRate(3999)).isEqualTo(40);
+	}
+
+	@Test
+	public void constantArrivals() {
+		RateProfile profile = RateProfile.constant(500, 1000);
+
+		assertThat(profile.getArrivalMillis(0)).isEqualTo(0);
+		assertThat(profile.getArrivalMillis(1)).isEqualTo(2, delta(1e-9));
+		assertThat(profile.getArrivalMillis(499)).isEqualTo(998, delta(1e-9));
+		assertThat(profile.getArrivalMillis(500)).isEqualTo(-1);
+	}
+
+	@Test
+	public void rampFromZeroArrivals() {
+		RateProfile profile = RateProfile.ramp(0, 500, 60000);
+
+		// 500 / 60 / 2 * t^2 iterations are started by t seconds
+		assertThat(profile.getArrivalMillis(1)).isEqualTo(
+				Math.sqrt(0.24) * 1000, delta(1e-6));
+		assertThat(profile.getArrivalMillis(14999)).isLessThan(60000);
+		assertThat(profile.getArrivalMillis(15000)).isEqualTo(-1);
+	}
+
+	@Test
+	public void rampDownArrivals() {
+		RateProfile profile = RateProfile.ramp(100, 0, 1000);
+
+		double previous = -1;
+		for (int arrival = 0; arrival < 50; arrival++) {
+			double arrivalMillis = profile.getArrivalMillis(arrival);
+			assertThat(arrivalMillis).isGreaterThan(previous)
+					.isLessThanOrEqualTo(1000);
+			previous = arrivalMillis;
+		}
+		assertThat(profile.getArrivalMillis(50)).isEqualTo(-1);
+	}
+
+	@Test
+	public void zeroStageIsSkipped() {
+		RateProfile profile = RateProfile.step(1000, 10, 0, 10);
+
+		assertThat(profile.getArrivalMillis(9)).isEqualTo(900, delta(1e-9));
+		assertThat(profile.getArrivalMillis(10)).isEqualTo(2000);
+		assertThat(profile.getArrivalMillis(20)).isEqualTo(-1);
+	}
+
+}
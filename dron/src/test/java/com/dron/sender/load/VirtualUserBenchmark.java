@@ -0,0 +1,100 @@
+package com.dron.sender.load;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.net.InetSocketAddress;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import com.dron.sender.sequence.models.Plugin;
+import com.dron.sender.sequence.models.Sequence;
+import com.dron.sender.sequence.services.RequestRunner;
+import com.dron.sender.sequence.transport.TransportConfig;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Compares platform and virtual thread executors of LoadRunner on the same
+ * sequence against a local stub with a fixed backend latency. The stub
+ * answers from a small scheduler, so its threads don't affect the result.
+ * 
+ * Arguments: [virtual users] [duration seconds] [backend latency millis]
+ * 
+ * @author Koropatva
+ *
+ */
+public class VirtualUserBenchmark {
+
+	private static final byte[] RESPONSE = "{\"id\":\"42\"}".getBytes();
+
+	public static void main(String[] args) throws Exception {
+		int users = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+		long duration = TimeUnit.SECONDS.toMillis(args.length > 1 ? Long
+				.parseLong(args[1]) : 10);
+		long latency = args.length > 2 ? Long.parseLong(args[2]) : 50;
+
+		ScheduledExecutorService responder = Executors
+				.newScheduledThreadPool(2);
+		HttpServer server = HttpServer.create(new InetSocketAddress(
+				"127.0.0.1", 0), users);
+		server.createContext("/", exchange -> responder.schedule(
+				() -> respond(exchange), latency, TimeUnit.MILLISECONDS));
+		server.start();
+
+		TransportConfig config = new TransportConfig();
+		config.setMaxConnectionsTotal(users);
+		config.setMaxConnectionsPerRoute(users);
+		RequestRunner.getInstance().configure(config);
+
+		Sequence sequence = createSequence("http://127.0.0.1:"
+				+ server.getAddress().getPort());
+		ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+		try {
+			for (ExecutorType type : ExecutorType.values()) {
+				if (type == ExecutorType.VIRTUAL
+						&& !VirtualUserExecutors.isVirtualThreadSupported()) {
+					System.out.println(type + ": not supported by Java "
+							+ System.getProperty("java.version"));
+					continue;
+				}
+				LoadProfile profile = new LoadProfile(users, 0, duration, 0);
+				profile.setExecutorType(type);
+
+				threads.resetPeakThreadCount();
+				LoadResult result = new LoadRunner(sequence, profile).run();
+				System.out.println(String.format("%s: %s; peak platform threads: %d",
+						type, result, threads.getPeakThreadCount()));
+			}
+		} finally {
+			server.stop(0);
+			responder.shutdownNow();
+			RequestRunner.getInstance().shutdown();
+		}
+	}
+
+	private static Sequence createSequence(String url) {
+		Sequence sequence = new Sequence();
+		for (String path : new String[] { "/login", "/profile", "/orders" }) {
+			Plugin plugin = new Plugin();
+			plugin.setUrl(url + path);
+			sequence.getPlugins().add(plugin);
+			sequence.getOrder().add(plugin.getId());
+		}
+		return sequence;
+	}
+
+	private static void respond(HttpExchange exchange) {
+		try {
+			exchange.getResponseHeaders().add("Content-Type",
+					"application/json");
+			exchange.sendResponseHeaders(200, RESPONSE.length);
+			exchange.getResponseBody().write(RESPONSE);
+		} catch (IOException e) {
+			System.out.println(e.getMessage());
+		} finally {
+			exchange.close();
+		}
+	}
+}
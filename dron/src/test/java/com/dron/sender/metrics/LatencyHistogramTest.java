@@ -0,0 +1,60 @@
+package com.dron.sender.metrics;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+public class LatencyHistogramTest {
+
+	@Test
+	public void bucketsCoverValues() {
+		for (long value : new long[] { 0, 1, 31, 32, 33, 1000, 123456789,
+				Long.MAX_VALUE }) {
+			int bucket = LatencyHistogram.bucket(value);
+			assertThat(LatencyHistogram.highestValue(bucket))
+					.isGreaterThanOrEqualTo(value);
+			if (bucket > 0) {
+				assertThat(LatencyHistogram.highestValue(bucket - 1))
+						.isLessThan(value);
+			}
+		}
+	}
+
+	@Test
+	public void percentiles() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		for (int i = 1; i <= 1000; i++) {
+			histogram.record(TimeUnit.MILLISECONDS.toNanos(i));
+		}
+
+		assertThat(histogram.getCount()).isEqualTo(1000);
+		assertThat(histogram.getMaxNanos()).isEqualTo(
+				TimeUnit.MILLISECONDS.toNanos(1000));
+		assertWithin(histogram.getValueAtPercentile(50), 500);
+		assertWithin(histogram.getValueAtPercentile(99), 990);
+		assertWithin(histogram.getValueAtPercentile(99.9), 999);
+	}
+
+	@Test
+	public void merge() {
+		LatencyHistogram first = new LatencyHistogram();
+		LatencyHistogram second = new LatencyHistogram();
+		first.record(10);
+		second.record(1000000);
+
+		first.merge(second);
+
+		assertThat(first.getCount()).isEqualTo(2);
+		assertThat(first.getMaxNanos()).isEqualTo(1000000);
+		assertThat(first.getValueAtPercentile(50)).isEqualTo(10);
+	}
+
+	private void assertWithin(long nanos, long expectedMillis) {
+		long expected = TimeUnit.MILLISECONDS.toNanos(expectedMillis);
+		assertThat(nanos).isGreaterThanOrEqualTo(expected);
+		assertThat(nanos).isLessThanOrEqualTo(expected + expected / 16);
+	}
+
+}
@@ -0,0 +1,126 @@
+package com.dron.sender.metrics;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.ReflectionException;
+
+import org.junit.Test;
+
+public class MetricsRegistryTest {
+
+	@Test
+	public void metricIsCreatedOnce() {
+		MetricsRegistry registry = new MetricsRegistry();
+
+		assertThat(registry.counter("test_total", null)).isSameAs(
+				registry.counter("test_total", null));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void nameHasOneType() {
+		MetricsRegistry registry = new MetricsRegistry();
+		registry.counter("test", null);
+		registry.timer("test", null);
+	}
+
+	@Test
+	public void prometheusText() {
+		MetricsRegistry registry = new MetricsRegistry();
+		registry.counter("test_requests_total", "Requests sent").add(3);
+		registry.gauge("test_in_flight", null, () -> 2);
+		registry.timer("test_duration_seconds", null).record(
+				TimeUnit.MILLISECONDS.toNanos(1500));
+
+		String text = registry.toPrometheus();
+
+		assertThat(text).contains(
+				"# HELP test_requests_total Requests sent\n"
+						+ "# TYPE test_requests_total counter\n"
+						+ "test_requests_total 3\n");
+		assertThat(text).contains(
+				"# TYPE test_in_flight gauge\ntest_in_flight 2\n");
+		assertThat(text).contains("# TYPE test_duration_seconds summary\n");
+		assertThat(text).contains("test_duration_seconds_sum 1.5\n");
+		assertThat(text).contains("test_duration_seconds_count 1\n");
+		assertThat(text).contains("test_duration_seconds{quantile=\"0.99\"} ");
+	}
+
+	@Test
+	public void valuesAreReadFromJmx() throws Exception {
+		MetricsRegistry registry = MetricsRegistry.getInstance();
+		registry.counter("test_jmx_total", null).increment();
+		registry.registerMBean();
+
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		assertThat(
+				server.getAttribute(new ObjectName(
+						MetricsRegistry.OBJECT_NAME), "test_jmx_total"))
+				.isEqualTo(1L);
+	}
+
+	@Test
+	public void operationsAreNotFound() throws Exception {
+		MetricsRegistry.getInstance().registerMBean();
+
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		try {
+			server.invoke(new ObjectName(MetricsRegistry.OBJECT_NAME),
+					"reset", null, null);
+			throw new AssertionError("Operation is invoked");
+		} catch (ReflectionException e) {
+			assertThat(e.getTargetException()).isInstanceOf(
+					NoSuchMethodException.class);
+		}
+	}
+
+	@Test
+	public void metricsAreServed() throws Exception {
+		MetricsRegistry registry = new MetricsRegistry();
+		registry.counter("test_served_total", null).increment();
+		MetricsServer server = new MetricsServer(registry, 0);
+		server.start();
+		try {
+			HttpURLConnection connection = (HttpURLConnection) new URL(
+					"http://127.0.0.1:" + server.getPort()
+							+ MetricsServer.PATH).openConnection();
+
+			assertThat(connection.getResponseCode()).isEqualTo(200);
+			assertThat(connection.getContentType()).startsWith("text/plain");
+			assertThat(read(connection.getInputStream())).contains(
+					"test_served_total 1\n");
+		} finally {
+			server.stop();
+		}
+	}
+
+	@Test
+	public void utf8Length() {
+		assertThat(RequestMetrics.utf8Length("id")).isEqualTo(2);
+		// e-acute, euro sign and a grinning face out of the BMP
+		String text = "\u00e9\u20ac\ud83d\ude00";
+		assertThat(RequestMetrics.utf8Length(text)).isEqualTo(
+				text.getBytes(StandardCharsets.UTF_8).length);
+	}
+
+	private static String read(InputStream input) throws Exception {
+		try (InputStream stream = input) {
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			byte[] buffer = new byte[1024];
+			int read;
+			while ((read = stream.read(buffer)) > 0) {
+				bytes.write(buffer, 0, read);
+			}
+			return new String(bytes.toByteArray(), StandardCharsets.UTF_8);
+		}
+	}
+}
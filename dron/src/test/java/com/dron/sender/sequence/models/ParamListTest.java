@@ -0,0 +1,54 @@
+package com.dron.sender.sequence.models;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+import org.junit.Test;
+
+public class ParamListTest {
+
+	@Test
+	public void findsFirstParamWithKey() {
+		ParamList params = new ParamList();
+		Param first = new Param("{{id}}", "1");
+		params.add(first);
+		params.add(new Param("{{id}}", "2"));
+
+		assertThat(params.find("{{id}}")).isSameAs(first);
+		assertThat(params.find("{{missing}}")).isNull();
+	}
+
+	@Test
+	public void keepsIndexAfterChanges() {
+		ParamList params = new ParamList();
+		Param id = new Param("{{id}}", "1");
+		Param name = new Param("{{name}}", "dron");
+		params.add(id);
+		params.add(name);
+
+		params.add(0, new Param("{{name}}", "first"));
+		assertThat(params.find("{{name}}").getValue()).isEqualTo("first");
+
+		params.remove(0);
+		assertThat(params.find("{{name}}")).isSameAs(name);
+
+		id.setKey("{{userId}}");
+		assertThat(params.find("{{id}}")).isNull();
+		assertThat(params.find("{{userId}}")).isSameAs(id);
+
+		params.remove(id);
+		id.setKey("{{name}}");
+		assertThat(params.find("{{name}}")).isSameAs(name);
+		assertThat(params).containsExactly(name);
+	}
+
+	@Test
+	public void sequenceParamsAreIndexed() {
+		Sequence sequence = new Sequence();
+		sequence.addParam(new Param("{{id}}", "1"));
+		sequence.updateParam(new Param("{{id}}", "2"));
+
+		assertThat(sequence.findParam("{{id}}")).isEqualTo("2");
+		assertThat(sequence.getParams() instanceof ParamList).isTrue();
+	}
+
+}
@@ -0,0 +1,99 @@
+package com.dron.sender.sequence.models;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.dron.sender.exceptions.HandlerNotReadyException;
+
+public class SequenceRunTest {
+
+	private static final String USER_ID = "{{userId}}";
+	private static final String IDS = "{{ids}}";
+	private static final String NAME = "{{name}}";
+
+	private Sequence sequence;
+
+	@Before
+	public void setUp() {
+		sequence = new Sequence();
+		sequence.addParam(new Param(USER_ID, "1"));
+		sequence.addParam(new Param(IDS, null, true));
+		sequence.addParam(new Param(NAME, "{#STRING#}"));
+
+		Plugin plugin = new Plugin();
+		plugin.setUrl("http://localhost/users/" + USER_ID);
+		sequence.getPlugins().add(plugin);
+		sequence.getOrder().add(plugin.getId());
+		sequence.getOrder().add(plugin.getId());
+	}
+
+	@Test
+	public void runsDontChangeDefinition() throws HandlerNotReadyException {
+		SequenceDefinition definition = SequenceDefinition.compile(sequence);
+		SequenceRun first = new SequenceRun(definition);
+		SequenceRun second = new SequenceRun(definition);
+
+		first.putParam(USER_ID, "2");
+
+		assertThat(first.fillData(definition.getPlugins().get(0).getUrl()))
+				.isEqualTo("http://localhost/users/2");
+		assertThat(second.fillData(definition.getPlugins().get(0).getUrl()))
+				.isEqualTo("http://localhost/users/1");
+		assertThat(definition.getParams().get(USER_ID)).isEqualTo("1");
+		assertThat(sequence.findParam(USER_ID)).isEqualTo("1");
+	}
+
+	@Test
+	public void repeatedPluginIsShared() throws HandlerNotReadyException {
+		SequenceDefinition definition = SequenceDefinition.compile(sequence);
+
+		assertThat(definition.getPlugins()).hasSize(2);
+		assertThat(definition.getPlugins().get(0)).isSameAs(
+				definition.getPlugins().get(1));
+	}
+
+	@Test
+	public void arrayParamCollectsValues() throws HandlerNotReadyException {
+		SequenceRun run = new SequenceRun(SequenceDefinition.compile(sequence));
+
+		run.putParam(IDS, "1");
+		run.putParam(IDS, "2");
+
+		assertThat(run.getParam(IDS)).isEqualTo("[1, 2]");
+	}
+
+	@Test
+	public void resetStartsIterationOver() throws HandlerNotReadyException {
+		SequenceRun run = new SequenceRun(SequenceDefinition.compile(sequence));
+		run.putParam(USER_ID, "2");
+		run.putParam(IDS, "1");
+		String name = run.fillData(NAME);
+
+		run.reset();
+		run.putParam(IDS, "3");
+
+		assertThat(run.getParam(USER_ID)).isEqualTo("2");
+		assertThat(run.getParam(IDS)).isEqualTo("[3]");
+		assertThat(run.fillData(NAME)).isNotEqualTo(name);
+	}
+
+	@Test
+	public void randomValueIsKeptForRun() throws HandlerNotReadyException {
+		SequenceRun run = new SequenceRun(SequenceDefinition.compile(sequence));
+
+		String name = run.fillData(NAME);
+
+		assertThat(name).isNotEqualTo("{#STRING#}");
+		assertThat(run.fillData(NAME)).isEqualTo(name);
+		assertThat(sequence.findParam(NAME)).isEqualTo("{#STRING#}");
+	}
+
+	@Test(expected = HandlerNotReadyException.class)
+	public void unknownPluginInOrder() throws HandlerNotReadyException {
+		sequence.getOrder().add("missing");
+		SequenceDefinition.compile(sequence);
+	}
+
+}
@@ -0,0 +1,71 @@
+package com.dron.sender.sequence.services;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+
+import com.dron.sender.metrics.ErrorMetrics;
+import com.dron.sender.sequence.models.FutureParam;
+
+public class FutureParamServiceTest {
+
+	private final FutureParamService futureParamService = FutureParamService
+			.getInstance();
+
+	@Test
+	public void concurrentRunsKeepOwnParams() throws Exception {
+		List<FutureParam> futureParams = new ArrayList<FutureParam>();
+		futureParams.add(new FutureParam("{{id}}", "user..id"));
+
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		try {
+			List<Future<Boolean>> runs = new ArrayList<Future<Boolean>>();
+			for (int i = 0; i < 200; i++) {
+				String id = String.valueOf(i);
+				runs.add(executor.submit(() -> {
+					Map<String, String> params = new ConcurrentHashMap<String, String>();
+					futureParamService.fillFutureParams("{\"user\":{\"id\":"
+							+ id + "}}", futureParams, params::put);
+					return id.equals(params.get("{{id}}"))
+							&& params.size() == 1;
+				}));
+			}
+			for (Future<Boolean> run : runs) {
+				assertThat(run.get()).isTrue();
+			}
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void countsParamAndExtractionErrors() {
+		ErrorMetrics errorMetrics = ErrorMetrics.getInstance();
+		long paramErrors = errorMetrics.getParamErrors();
+		long extractionErrors = errorMetrics.getExtractionErrors();
+		Map<String, String> params = new ConcurrentHashMap<String, String>();
+
+		List<FutureParam> futureParams = new ArrayList<FutureParam>();
+		futureParams.add(new FutureParam("{{logId}}", "prices[first]..logId"));
+		futureParamService.fillFutureParams("{\"prices\":[]}", futureParams,
+				params::put);
+		assertThat(errorMetrics.getParamErrors()).isEqualTo(paramErrors + 1);
+
+		futureParams.clear();
+		futureParams.add(new FutureParam("{{id}}", "user..id"));
+		futureParamService.fillFutureParams("{\"user\":", futureParams,
+				params::put);
+		assertThat(errorMetrics.getExtractionErrors()).isEqualTo(
+				extractionErrors + 1);
+		assertThat(params).isEmpty();
+	}
+
+}
@@ -0,0 +1,40 @@
+package com.dron.sender.sequence.services;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+import org.junit.Test;
+
+import com.dron.sender.sequence.services.FuturePath.StepType;
+
+public class FuturePathTest {
+
+	@Test
+	public void compiledPathIsCached() {
+		assertThat(FuturePath.compile("data..prices[0]..logId")).isSameAs(
+				FuturePath.compile("data..prices[0]..logId"));
+	}
+
+	@Test
+	public void compileSteps() {
+		FuturePath path = FuturePath.compile("data..prices[0, 2]..logId");
+
+		assertThat(path.length()).isEqualTo(4);
+		assertThat(path.getStep(0).getType()).isEqualTo(StepType.FIELD);
+		assertThat(path.getStep(0).getName()).isEqualTo("data");
+		assertThat(path.getStep(1).getType()).isEqualTo(StepType.DEEP);
+		assertThat(path.getStep(1).getName()).isEqualTo("prices");
+		assertThat(path.getStep(2).getType()).isEqualTo(StepType.INDEX);
+		assertThat(path.getStep(2).isIndexSelected(0)).isTrue();
+		assertThat(path.getStep(2).isIndexSelected(1)).isFalse();
+		assertThat(path.getStep(2).isIndexSelected(2)).isTrue();
+		assertThat(path.getStep(2).isIndexSelected(100)).isFalse();
+		assertThat(path.getStep(3).getName()).isEqualTo("logId");
+		assertThat(path.isSingle()).isFalse();
+		assertThat(FuturePath.compile("user..id").isSingle()).isTrue();
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void wrongIndex() {
+		FuturePath.compile("prices[first]..logId");
+	}
+}
@@ -0,0 +1,88 @@
+package com.dron.sender.sequence.services;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.dron.sender.sequence.models.FutureParam;
+import com.dron.sender.sequence.models.Param;
+import com.dron.sender.sequence.models.Plugin;
+import com.dron.sender.sequence.models.Sequence;
+
+public class PluginDependencyGraphTest {
+
+	private static final String USER_ID = "{{userId}}";
+	private static final String TOKEN = "{{token}}";
+	private static final String USER_URL = "{{userUrl}}";
+
+	private Sequence sequence;
+
+	@Before
+	public void setUp() {
+		sequence = new Sequence();
+		sequence.addParam(new Param(USER_URL, "http://localhost/users/"
+				+ USER_ID));
+	}
+
+	@Test
+	public void independentPlugins() {
+		addPlugin("http://localhost/a", null);
+		addPlugin("http://localhost/b", null);
+
+		PluginDependencyGraph graph = new PluginDependencyGraph(sequence);
+
+		assertThat(graph.getDependencies(0)).as(
+				"First plugin can't have dependencies").isEmpty();
+		assertThat(graph.getDependencies(1)).as(
+				"Plugins without common params should be independent")
+				.isEmpty();
+	}
+
+	@Test
+	public void dependencyThroughParamValue() {
+		addPlugin("http://localhost/login", null).getFutureParams().add(
+				new FutureParam(USER_ID, "id"));
+		addPlugin("http://localhost/lookup", null);
+		addPlugin(USER_URL, null);
+
+		PluginDependencyGraph graph = new PluginDependencyGraph(sequence);
+
+		assertThat(graph.getDependencies(1)).as(
+				"Lookup doesn't use filled params").isEmpty();
+		assertThat(graph.getDependencies(2)).as(
+				"Plugin should wait for the param used by its url value")
+				.containsOnly(0);
+	}
+
+	@Test
+	public void overwrittenParamKeepsOrder() {
+		addPlugin("http://localhost/a", "{\"token\":\"" + TOKEN + "\"}");
+		addPlugin("http://localhost/b", null).getFutureParams().add(
+				new FutureParam(TOKEN, "token"));
+
+		PluginDependencyGraph graph = new PluginDependencyGraph(sequence);
+
+		assertThat(graph.getDependencies(1)).as(
+				"Param can't be overwritten before it is used").containsOnly(0);
+	}
+
+	@Test
+	public void repeatedPluginKeepsOrder() {
+		Plugin plugin = addPlugin("http://localhost/a", null);
+		sequence.getOrder().add(plugin.getId());
+
+		PluginDependencyGraph graph = new PluginDependencyGraph(sequence);
+
+		assertThat(graph.getDependencies(1)).containsOnly(0);
+	}
+
+	private Plugin addPlugin(String url, String postBody) {
+		Plugin plugin = new Plugin();
+		plugin.setUrl(url);
+		plugin.setPostBody(postBody);
+		sequence.getPlugins().add(plugin);
+		sequence.getOrder().add(plugin.getId());
+		return plugin;
+	}
+}
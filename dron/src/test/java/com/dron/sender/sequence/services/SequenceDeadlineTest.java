@@ -0,0 +1,162 @@
+package com.dron.sender.sequence.services;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.dron.sender.exceptions.RequestException;
+import com.dron.sender.metrics.SequenceLatency;
+import com.dron.sender.sequence.models.Plugin;
+import com.dron.sender.sequence.models.PluginResult;
+import com.dron.sender.sequence.models.Sequence;
+import com.dron.sender.sequence.models.SequenceDefinition;
+import com.dron.sender.sequence.models.SequenceRun;
+import com.sun.net.httpserver.HttpServer;
+
+public class SequenceDeadlineTest {
+
+	// Backend that never answers until the test is over
+	private final CountDownLatch released = new CountDownLatch(1);
+
+	private final ExecutorService handlers = Executors.newCachedThreadPool();
+
+	private HttpServer server;
+
+	@Before
+	public void startServer() throws IOException {
+		server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		server.createContext("/", exchange -> {
+			try {
+				released.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			exchange.close();
+		});
+		server.setExecutor(handlers);
+		server.start();
+	}
+
+	@After
+	public void stopServer() throws IOException {
+		released.countDown();
+		server.stop(0);
+		handlers.shutdownNow();
+		RequestRunner.getInstance().shutdown();
+	}
+
+	@Test
+	public void readTimeoutOfPlugin() throws Exception {
+		Sequence sequence = createSequence(1);
+		sequence.getPlugins().get(0).setReadTimeoutMillis(200);
+
+		long start = System.nanoTime();
+		new SequenceRunner(sequence).runSequence();
+
+		assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start))
+				.isLessThan(5000);
+		assertThat(sequence.getSentPlugins().get(0).isSuccess()).isFalse();
+	}
+
+	@Test
+	public void deadlineAbortsSequence() throws Exception {
+		Sequence sequence = createSequence(2);
+		SequenceRunner runner = new SequenceRunner(sequence);
+		runner.setDeadlineMillis(300);
+
+		long start = System.nanoTime();
+		try {
+			runner.runSequence();
+			throw new AssertionError("Deadline is not exceeded");
+		} catch (RequestException e) {
+			assertThat(e.getMessage()).contains("deadline");
+		}
+
+		assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start))
+				.isLessThan(5000);
+		assertThat(sequence.getSentPlugins()).hasSize(1);
+		assertThat(sequence.getSentPlugins().get(0).getResponce()).contains(
+				"deadline");
+		// Timed out runs are in the histogram and counted as failed
+		assertThat(runner.getLatency().getSequence().getCount()).isEqualTo(1);
+		assertThat(runner.getLatency().getFailedSequences()).isEqualTo(1);
+	}
+
+	@Test
+	public void cancelAbortsSequence() throws Exception {
+		Sequence sequence = createSequence(2);
+		SequenceRunner runner = new SequenceRunner(sequence);
+		ScheduledExecutorService ui = Executors
+				.newSingleThreadScheduledExecutor();
+		ui.schedule(runner::cancel, 300, TimeUnit.MILLISECONDS);
+
+		long start = System.nanoTime();
+		try {
+			runner.runSequence();
+			throw new AssertionError("Sequence is not cancelled");
+		} catch (RequestException e) {
+			assertThat(e.getMessage()).contains("cancelled");
+		} finally {
+			ui.shutdown();
+		}
+
+		assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start))
+				.isLessThan(5000);
+		assertThat(sequence.getSentPlugins()).hasSize(1);
+		assertThat(runner.isCancelled()).isTrue();
+	}
+
+	@Test
+	public void cancelBeforeRun() throws Exception {
+		Sequence sequence = createSequence(1);
+		SequenceRunner runner = new SequenceRunner(sequence);
+		runner.cancel();
+
+		runner.runPlugin(sequence.getOrder().get(0));
+
+		assertThat(sequence.getSentPlugins().get(0).isSuccess()).isFalse();
+		assertThat(sequence.getSentPlugins().get(0).getResponce()).contains(
+				"cancelled");
+	}
+
+	@Test
+	public void deadlineCancelsAsyncRun() throws Exception {
+		SequenceRun run = new SequenceRun(SequenceDefinition
+				.compile(createSequence(2)));
+		run.setDeadlineMillis(300);
+		SequenceLatency latency = new SequenceLatency();
+
+		SequenceDefinitionRunner.getInstance().runAsync(run, latency)
+				.get(5, TimeUnit.SECONDS);
+
+		assertThat(latency.getSequence().getCount()).isEqualTo(1);
+		assertThat(latency.getFailedSequences()).isEqualTo(1);
+		assertThat(run.getResults()).hasSize(2);
+		for (PluginResult result : run.getResults()) {
+			assertThat(result.isSuccess()).isFalse();
+			assertThat(result.getResponce()).contains("deadline");
+		}
+	}
+
+	private Sequence createSequence(int plugins) {
+		Sequence sequence = new Sequence();
+		for (int i = 0; i < plugins; i++) {
+			Plugin plugin = new Plugin();
+			plugin.setUrl("http://127.0.0.1:" + server.getAddress().getPort()
+					+ "/" + i);
+			sequence.getPlugins().add(plugin);
+			sequence.getOrder().add(plugin.getId());
+		}
+		return sequence;
+	}
+}
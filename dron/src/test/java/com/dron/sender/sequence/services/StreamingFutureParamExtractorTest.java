@@ -0,0 +1,95 @@
+package com.dron.sender.sequence.services;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.dron.sender.sequence.models.FutureParam;
+import com.fasterxml.jackson.core.JsonFactory;
+
+public class StreamingFutureParamExtractorTest {
+
+	private static final String RESPONSE = "{\"id\":7,\"user\":{\"name\":\"dron\"},"
+			+ "\"data\":{\"prices\":[{\"logId\":\"a\"},{\"logId\":\"b\"},{\"logId\":\"c\"}]}}";
+
+	private final StreamingFutureParamExtractor extractor = new StreamingFutureParamExtractor(
+			new JsonFactory());
+
+	@Test
+	public void fieldPath() throws Exception {
+		assertThat(extract(RESPONSE, "user..name")).containsExactly("dron");
+		assertThat(extract(RESPONSE, "id")).containsExactly("7");
+		assertThat(extract(RESPONSE, "user..missing")).isEmpty();
+	}
+
+	@Test
+	public void deepIndexPath() throws Exception {
+		assertThat(extract(RESPONSE, "prices[0,2]..logId")).containsExactly(
+				"a", "c");
+		assertThat(extract("[{\"id\":1},{\"id\":2}]", "[1]..id"))
+				.containsExactly("2");
+	}
+
+	@Test
+	public void valuesFollowFutureParamsOrder() throws Exception {
+		List<FutureParam> futureParams = new ArrayList<FutureParam>();
+		futureParams.add(new FutureParam("{{name}}", "user..name"));
+		futureParams.add(new FutureParam("{{id}}", "id"));
+		List<String> keys = new ArrayList<String>();
+
+		extractor.extract(RESPONSE, futureParams,
+				(futureParam, value) -> keys.add(futureParam.getKey()));
+
+		assertThat(keys).containsExactly("{{name}}", "{{id}}");
+	}
+
+	@Test
+	public void wrongDependenceKeepsOtherValues() throws Exception {
+		List<FutureParam> futureParams = new ArrayList<FutureParam>();
+		futureParams.add(new FutureParam("{{logId}}", "prices[first]..logId"));
+		futureParams.add(new FutureParam("{{id}}", "id"));
+		List<String> values = new ArrayList<String>();
+
+		extractor.extract(RESPONSE, futureParams,
+				(futureParam, value) -> values.add(value));
+
+		assertThat(values).containsExactly("7");
+	}
+
+	@Test
+	public void extractsWhenPathCacheIsFull() throws Exception {
+		// Paths compiled after the cache is full are new instances
+		for (int i = 0; i < 10000; i++) {
+			FuturePath.compile("filler" + i);
+		}
+		try {
+			assertThat(FuturePath.compile("data..prices[1]..logId"))
+					.isNotSameAs(FuturePath.compile("data..prices[1]..logId"));
+
+			assertThat(extract(RESPONSE, "data..prices[1]..logId"))
+					.containsExactly("b");
+		} finally {
+			FuturePath.clearCache();
+		}
+	}
+
+	@Test
+	public void stopsWhenPathsAreSatisfied() throws Exception {
+		// The rest of the response isn't parsed, so the broken tail is ignored
+		assertThat(extract("{\"id\":\"1\",\"tail\":[", "id")).containsExactly(
+				"1");
+	}
+
+	private List<String> extract(String response, String dependence)
+			throws Exception {
+		List<FutureParam> futureParams = new ArrayList<FutureParam>();
+		futureParams.add(new FutureParam("{{key}}", dependence));
+		List<String> values = new ArrayList<String>();
+		extractor.extract(response, futureParams,
+				(futureParam, value) -> values.add(value));
+		return values;
+	}
+}
@@ -0,0 +1,141 @@
+package com.dron.sender.sequence.transport;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.Protocol;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+
+import com.dron.sender.exceptions.RequestException;
+import com.dron.sender.sequence.enums.TransportType;
+import com.dron.sender.sequence.models.Plugin;
+import com.dron.sender.sequence.models.RequestTimings;
+import com.dron.sender.sequence.models.Sequence;
+import com.dron.sender.sequence.services.RequestRunner;
+import com.dron.sender.sequence.services.SequenceRunner;
+
+public class Http2TransportTest {
+
+	private static final int SLOW_MILLIS = 200;
+
+	private MockWebServer server;
+
+	private String url;
+
+	@Before
+	public void startServer() throws IOException {
+		server = new MockWebServer();
+		// h2c with prior knowledge, the server speaks no HTTP/1.1
+		server.setProtocols(Collections
+				.singletonList(Protocol.H2_PRIOR_KNOWLEDGE));
+		server.setDispatcher(new Dispatcher() {
+			@Override
+			public MockResponse dispatch(RecordedRequest request) {
+				if (request.getPath().startsWith("/hang")) {
+					return new MockResponse().setHeadersDelay(10,
+							TimeUnit.SECONDS);
+				}
+				return new MockResponse().setHeadersDelay(
+						request.getPath().startsWith("/slow") ? SLOW_MILLIS
+								: 0,
+						TimeUnit.MILLISECONDS).setBody(
+						request.getMethod() + ":" + request.getBody().readUtf8());
+			}
+		});
+		server.start();
+		url = "http://127.0.0.1:" + server.getPort();
+		RequestRunner.getInstance().shutdown();
+	}
+
+	@After
+	public void stopServer() throws IOException {
+		RequestRunner.getInstance().shutdown();
+		server.shutdown();
+	}
+
+	@Test
+	public void sendsOverH2c() throws Exception {
+		RequestRunner runner = RequestRunner.getInstance();
+		RequestTimings timings = new RequestTimings();
+		assertThat(
+				runner.exchange(TransportType.HTTP2, HttpMethod.GET,
+						url + "/echo", null, String.class, timings, null)
+						.getBody()).isEqualTo("GET:");
+		assertThat(timings.isConnectionReused()).isFalse();
+		assertThat(timings.getTtfbNanos()).isGreaterThan(0);
+
+		assertThat(
+				runner.exchange(TransportType.HTTP2, HttpMethod.POST,
+						url + "/echo", new HttpEntity<String>("{\"id\":42}"),
+						String.class, null, null).getBody()).isEqualTo(
+				"POST:{\"id\":42}");
+	}
+
+	@Test
+	public void multiplexesConcurrentRequests() throws Exception {
+		RequestRunner runner = RequestRunner.getInstance();
+		// Opens the connection, concurrent first requests could race
+		runner.exchange(TransportType.HTTP2, HttpMethod.GET, url + "/echo",
+				null, String.class, null, null);
+
+		long start = System.nanoTime();
+		List<CompletableFuture<ResponseEntity<String>>> responses = new ArrayList<CompletableFuture<ResponseEntity<String>>>();
+		for (int i = 0; i < 20; i++) {
+			responses.add(runner.exchangeAsync(TransportType.HTTP2,
+					HttpMethod.GET, url + "/slow/" + i, null, String.class,
+					null, null));
+		}
+		for (CompletableFuture<ResponseEntity<String>> response : responses) {
+			assertThat(response.get(5, TimeUnit.SECONDS).getBody()).isEqualTo(
+					"GET:");
+		}
+		// Streams overlap, one at a time would take 20 * SLOW_MILLIS
+		assertThat(
+				TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start))
+				.isLessThan(5 * SLOW_MILLIS);
+
+		Http2Statistics statistics = runner.getHttp2Statistics();
+		assertThat(statistics.getConnectionsOpened()).isEqualTo(1);
+		assertThat(statistics.getConnections()).isEqualTo(1);
+		assertThat(statistics.getStreamsOpened()).isEqualTo(21);
+		assertThat(statistics.getActiveStreams()).isEqualTo(0);
+	}
+
+	@Test
+	public void deadlineCancelsStream() throws Exception {
+		Sequence sequence = new Sequence();
+		Plugin plugin = new Plugin();
+		plugin.setUrl(url + "/hang");
+		sequence.getPlugins().add(plugin);
+		sequence.getOrder().add(plugin.getId());
+
+		SequenceRunner runner = new SequenceRunner(sequence);
+		runner.setTransportType(TransportType.HTTP2);
+		runner.setDeadlineMillis(200);
+		long start = System.nanoTime();
+		try {
+			runner.runSequence();
+			throw new AssertionError("Stream is not cancelled");
+		} catch (RequestException e) {
+			assertThat(
+					TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start))
+					.isLessThan(5000);
+		}
+	}
+}
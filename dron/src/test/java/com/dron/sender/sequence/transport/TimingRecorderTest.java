@@ -0,0 +1,93 @@
+package com.dron.sender.sequence.transport;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.http.HttpMethod;
+
+import com.dron.sender.sequence.models.RequestTimings;
+import com.dron.sender.sequence.services.RequestRunner;
+import com.sun.net.httpserver.HttpServer;
+
+public class TimingRecorderTest {
+
+	private static final byte[] RESPONSE = "{\"id\":\"42\"}".getBytes();
+
+	private HttpServer server;
+
+	private String url;
+
+	@Before
+	public void startServer() throws IOException {
+		server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		server.createContext("/", exchange -> {
+			exchange.sendResponseHeaders(200, RESPONSE.length);
+			try (OutputStream body = exchange.getResponseBody()) {
+				body.write(RESPONSE);
+			}
+		});
+		server.start();
+		url = "http://127.0.0.1:" + server.getAddress().getPort() + "/";
+		RequestRunner.getInstance().shutdown();
+	}
+
+	@After
+	public void stopServer() throws IOException {
+		server.stop(0);
+		RequestRunner.getInstance().shutdown();
+	}
+
+	@Test
+	public void recordsPhasesOfNewConnection() throws Exception {
+		RequestTimings timings = new RequestTimings();
+		String response = RequestRunner.getInstance().run(HttpMethod.GET, url,
+				null, String.class, timings);
+
+		assertThat(response).isEqualTo("{\"id\":\"42\"}");
+		assertThat(timings.isConnectionReused()).isFalse();
+		assertThat(timings.getTlsNanos()).isEqualTo(0);
+		assertThat(timings.getTtfbNanos()).isGreaterThan(0);
+		assertThat(timings.getTotalNanos()).isGreaterThanOrEqualTo(
+				timings.getConnectNanos() + timings.getTtfbNanos()
+						+ timings.getDownloadNanos());
+	}
+
+	@Test
+	public void reusedConnectionHasNoConnectPhase() throws Exception {
+		RequestRunner.getInstance().run(HttpMethod.GET, url, null,
+				String.class, new RequestTimings());
+		RequestTimings timings = new RequestTimings();
+		RequestRunner.getInstance().run(HttpMethod.GET, url, null,
+				String.class, timings);
+
+		assertThat(timings.isConnectionReused()).isTrue();
+		assertThat(timings.getDnsNanos()).isEqualTo(0);
+		assertThat(timings.getTtfbNanos()).isGreaterThan(0);
+	}
+
+	@Test
+	public void asyncRequestRecordsResponsePhases() throws Exception {
+		RequestTimings timings = new RequestTimings();
+		RequestRunner.getInstance()
+				.runAsync(HttpMethod.GET, url, null, String.class, timings)
+				.get();
+
+		assertThat(timings.getTtfbNanos()).isGreaterThan(0);
+		assertThat(timings.getTotalNanos()).isGreaterThanOrEqualTo(
+				timings.getTtfbNanos());
+	}
+
+	@Test
+	public void recorderIsNotLeftBound() throws Exception {
+		RequestRunner.getInstance().run(HttpMethod.GET, url, null,
+				String.class, new RequestTimings());
+
+		assertThat(TimingRecorder.current()).isNull();
+	}
+}
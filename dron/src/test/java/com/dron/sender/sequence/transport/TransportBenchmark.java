@@ -0,0 +1,110 @@
+package com.dron.sender.sequence.transport;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import com.dron.sender.load.LoadProfile;
+import com.dron.sender.load.LoadResult;
+import com.dron.sender.load.LoadRunner;
+import com.dron.sender.sequence.enums.TransportType;
+import com.dron.sender.sequence.models.Plugin;
+import com.dron.sender.sequence.models.Sequence;
+import com.dron.sender.sequence.services.RequestRunner;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Compares transports of RequestRunner on the same sequence against a local
+ * stub with a fixed backend latency. Every transport gets a warm up run
+ * first, so connections are open before the measured run.
+ * 
+ * Arguments: [virtual users] [duration seconds] [backend latency millis]
+ * 
+ * @author Koropatva
+ *
+ */
+public class TransportBenchmark {
+
+	private static final byte[] RESPONSE = "{\"id\":\"42\"}".getBytes();
+
+	public static void main(String[] args) throws Exception {
+		int users = args.length > 0 ? Integer.parseInt(args[0]) : 50;
+		long duration = TimeUnit.SECONDS.toMillis(args.length > 1 ? Long
+				.parseLong(args[1]) : 10);
+		long latency = args.length > 2 ? Long.parseLong(args[2]) : 5;
+
+		// Stub writes headers and body apart, with Nagle the body waits for
+		// the delayed ACK of the client
+		System.setProperty("sun.net.httpserver.nodelay", "true");
+		ScheduledExecutorService responder = Executors
+				.newScheduledThreadPool(2);
+		HttpServer server = HttpServer.create(new InetSocketAddress(
+				"127.0.0.1", 0), users);
+		server.createContext("/", exchange -> responder.schedule(
+				() -> respond(exchange), latency, TimeUnit.MILLISECONDS));
+		server.start();
+
+		TransportConfig config = new TransportConfig();
+		config.setMaxConnectionsTotal(users);
+		config.setMaxConnectionsPerRoute(users);
+		RequestRunner.getInstance().configure(config);
+		// Keep-alive cache of HttpURLConnection is per host
+		System.setProperty("http.maxConnections", String.valueOf(users));
+
+		Sequence sequence = createSequence("http://127.0.0.1:"
+				+ server.getAddress().getPort());
+		try {
+			for (TransportType type : TransportType.values()) {
+				if (type == TransportType.HTTP2) {
+					System.out.println(type
+							+ ": the stub doesn't speak HTTP/2");
+					continue;
+				}
+				if (!Transports.isSupported(type)) {
+					System.out.println(type + ": not supported by "
+							+ System.getProperty("java.version"));
+					continue;
+				}
+				LoadProfile warmUp = new LoadProfile(users, 0, 0, 10);
+				warmUp.setTransportType(type);
+				new LoadRunner(sequence, warmUp).run();
+
+				LoadProfile profile = new LoadProfile(users, 0, duration, 0);
+				profile.setTransportType(type);
+				LoadResult result = new LoadRunner(sequence, profile).run();
+				System.out.println(String.format("%s: %s", type, result));
+			}
+		} finally {
+			server.stop(0);
+			responder.shutdownNow();
+			RequestRunner.getInstance().shutdown();
+		}
+	}
+
+	private static Sequence createSequence(String url) {
+		Sequence sequence = new Sequence();
+		for (String path : new String[] { "/login", "/profile", "/orders" }) {
+			Plugin plugin = new Plugin();
+			plugin.setUrl(url + path);
+			sequence.getPlugins().add(plugin);
+			sequence.getOrder().add(plugin.getId());
+		}
+		return sequence;
+	}
+
+	private static void respond(HttpExchange exchange) {
+		try {
+			exchange.getResponseHeaders().add("Content-Type",
+					"application/json");
+			exchange.sendResponseHeaders(200, RESPONSE.length);
+			exchange.getResponseBody().write(RESPONSE);
+		} catch (IOException e) {
+			System.out.println(e.getMessage());
+		} finally {
+			exchange.close();
+		}
+	}
+}
@@ -0,0 +1,352 @@
+package com.dron.sender.sequence.transport;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+
+import com.dron.sender.exceptions.RequestException;
+import com.dron.sender.sequence.enums.TransportType;
+import com.dron.sender.sequence.models.Param;
+import com.dron.sender.sequence.models.Plugin;
+import com.dron.sender.sequence.models.RequestTimings;
+import com.dron.sender.sequence.models.Sequence;
+import com.dron.sender.sequence.services.RequestRunner;
+import com.dron.sender.sequence.services.SequenceRunner;
+import com.sun.net.httpserver.HttpServer;
+
+public class TransportTest {
+
+	// The stub speaks HTTP/1.1 only, HTTP/2 is tested by Http2TransportTest
+	private static final TransportType[] HTTP1_TRANSPORTS = supported(
+			TransportType.HTTP_COMPONENTS, TransportType.URL_CONNECTION,
+			TransportType.NIO, TransportType.JDK_HTTP_CLIENT);
+
+	private static final int SLOW_MILLIS = 300;
+
+	// Requests to /hang are not answered until the test is over
+	private final CountDownLatch released = new CountDownLatch(1);
+
+	private final ExecutorService handlers = Executors.newCachedThreadPool();
+
+	private HttpServer server;
+
+	private String url;
+
+	@Before
+	public void startServer() throws IOException {
+		server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		server.createContext("/echo", exchange -> {
+			byte[] response = (exchange.getRequestMethod() + ":" + read(exchange
+					.getRequestBody())).getBytes("UTF-8");
+			exchange.sendResponseHeaders(200, response.length);
+			try (OutputStream body = exchange.getResponseBody()) {
+				body.write(response);
+			}
+		});
+		server.createContext("/method", exchange -> {
+			byte[] response = (exchange.getRequestMethod() + ":"
+					+ exchange.getRequestHeaders().getFirst("X-Dron") + ":"
+					+ read(exchange.getRequestBody())).getBytes("UTF-8");
+			// HEAD response has the length of the body but not the body
+			exchange.getResponseHeaders().add("X-Length",
+					String.valueOf(response.length));
+			boolean head = "HEAD".equals(exchange.getRequestMethod());
+			exchange.sendResponseHeaders(200, head ? -1 : response.length);
+			// Closing the body of a HEAD response fails the exchange, the
+			// server would close the connection after it was kept alive
+			if (!head) {
+				try (OutputStream body = exchange.getResponseBody()) {
+					body.write(response);
+				}
+			}
+		});
+		server.createContext("/slow", exchange -> {
+			try {
+				Thread.sleep(SLOW_MILLIS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			byte[] response = "slow".getBytes("UTF-8");
+			exchange.sendResponseHeaders(200, response.length);
+			try (OutputStream body = exchange.getResponseBody()) {
+				body.write(response);
+			}
+		});
+		server.createContext("/hang", exchange -> {
+			try {
+				released.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			exchange.close();
+		});
+		server.setExecutor(handlers);
+		server.start();
+		url = "http://127.0.0.1:" + server.getAddress().getPort();
+	}
+
+	@After
+	public void stopServer() throws IOException {
+		released.countDown();
+		server.stop(0);
+		handlers.shutdownNow();
+		RequestRunner.getInstance().shutdown();
+	}
+
+	@Test
+	public void sendsWithEveryTransport() throws Exception {
+		RequestRunner runner = RequestRunner.getInstance();
+		for (TransportType type : HTTP1_TRANSPORTS) {
+			RequestTimings timings = new RequestTimings();
+			assertThat(
+					runner.exchange(type, HttpMethod.GET, url + "/echo", null,
+							String.class, timings, null).getBody()).isEqualTo(
+					"GET:");
+			assertThat(timings.getTotalNanos()).isGreaterThan(0);
+
+			assertThat(
+					runner.exchange(type, HttpMethod.POST, url + "/echo",
+							new HttpEntity<String>("{\"id\":42}"),
+							String.class, null, null).getBody()).isEqualTo(
+					"POST:{\"id\":42}");
+
+			assertThat(
+					runner.exchangeAsync(type, HttpMethod.POST, url + "/echo",
+							new HttpEntity<String>("async"), String.class,
+							null, null).get(5, TimeUnit.SECONDS).getBody())
+					.isEqualTo("POST:async");
+		}
+	}
+
+	@Test
+	public void sendsEveryMethodWithHeaders() throws Exception {
+		RequestRunner runner = RequestRunner.getInstance();
+		for (TransportType type : HTTP1_TRANSPORTS) {
+			for (HttpMethod method : HttpMethod.values()) {
+				// HttpURLConnection can't send PATCH, the JDK stub doesn't
+				// answer TRACE
+				if (method == HttpMethod.TRACE
+						|| (method == HttpMethod.PATCH
+								&& type == TransportType.URL_CONNECTION)) {
+					continue;
+				}
+				Sequence sequence = new Sequence();
+				Plugin plugin = new Plugin(method);
+				plugin.setUrl(url + "/method");
+				plugin.setPostBody("{{id}}");
+				plugin.getHeaders().add("X-Dron", "header");
+				plugin.setSequence(sequence);
+				sequence.addParam(new Param("{{id}}", "42"));
+
+				String expected = method + ":header:"
+						+ (method == HttpMethod.POST || method == HttpMethod.PUT
+								|| method == HttpMethod.PATCH ? "42" : "");
+				if (method == HttpMethod.HEAD) {
+					assertThat(runner.run(plugin, String.class, type))
+							.as(type + " " + method).isNull();
+					assertThat(
+							runner.exchange(type, method, url + "/method",
+									new HttpEntity<String>(plugin.getHeaders()),
+									String.class, null, null).getHeaders()
+									.getFirst("X-Length")).isEqualTo(
+							String.valueOf(expected.length()));
+				} else {
+					assertThat(runner.run(plugin, String.class, type))
+							.as(type + " " + method).isEqualTo(expected);
+					assertThat(
+							runner.exchangeAsync(type, method,
+									url + "/method", plugin.fillEntity(),
+									String.class, null, null)
+									.get(5, TimeUnit.SECONDS).getBody())
+							.as(type + " " + method)
+							.startsWith(method + ":header:");
+				}
+			}
+		}
+	}
+
+	@Test
+	public void asyncRequestsOverlap() throws Exception {
+		RequestRunner runner = RequestRunner.getInstance();
+		for (TransportType type : HTTP1_TRANSPORTS) {
+			// Clients of the transport are created before the time is taken
+			runner.exchangeAsync(type, HttpMethod.GET, url + "/echo", null,
+					String.class, null, null).get(5, TimeUnit.SECONDS);
+			long start = System.nanoTime();
+			List<CompletableFuture<ResponseEntity<String>>> responses = new ArrayList<CompletableFuture<ResponseEntity<String>>>();
+			for (int i = 0; i < 8; i++) {
+				responses.add(runner.exchangeAsync(type, HttpMethod.GET, url
+						+ "/slow", null, String.class, null, null));
+			}
+			for (CompletableFuture<ResponseEntity<String>> response : responses) {
+				assertThat(response.get(5, TimeUnit.SECONDS).getBody())
+						.isEqualTo("slow");
+			}
+			// One at a time would take 8 * SLOW_MILLIS
+			assertThat(
+					TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start))
+					.as(type.name()).isLessThan(4 * SLOW_MILLIS);
+		}
+	}
+
+	@Test
+	public void retriesOnConnectionsClosedByServer() throws Exception {
+		// Every connection answers one request with keep-alive and is closed
+		// right away, like by a server with a short idle timeout
+		try (ServerSocket closingServer = new ServerSocket(0, 50,
+				InetAddress.getByName("127.0.0.1"))) {
+			handlers.execute(() -> {
+				while (!closingServer.isClosed()) {
+					try {
+						Socket socket = closingServer.accept();
+						handlers.execute(() -> answerAndClose(socket));
+					} catch (IOException e) {
+						// The server is closed
+					}
+				}
+			});
+			String closingUrl = "http://127.0.0.1:"
+					+ closingServer.getLocalPort() + "/";
+			RequestRunner runner = RequestRunner.getInstance();
+			for (TransportType type : HTTP1_TRANSPORTS) {
+				for (int i = 0; i < 50; i++) {
+					// Some clients retry GET only by themselves
+					HttpMethod method = i % 2 == 0 ? HttpMethod.GET
+							: HttpMethod.DELETE;
+					assertThat(
+							runner.exchange(type, method, closingUrl, null,
+									String.class, null, null).getBody())
+							.as(type + " " + method).isEqualTo("ok");
+					assertThat(
+							runner.exchangeAsync(type, method, closingUrl,
+									null, String.class, null, null)
+									.get(5, TimeUnit.SECONDS).getBody())
+							.as(type + " " + method).isEqualTo("ok");
+				}
+			}
+		}
+	}
+
+	@Test
+	public void readTimeoutOfEveryTransport() throws Exception {
+		for (TransportType type : HTTP1_TRANSPORTS) {
+			long start = System.nanoTime();
+			try {
+				RequestRunner.getInstance().exchange(type, HttpMethod.GET,
+						url + "/hang", null, String.class, null,
+						RequestTimeouts.of(null, 200));
+				throw new AssertionError(type + " has no read timeout");
+			} catch (RuntimeException e) {
+				assertThat(
+						TimeUnit.NANOSECONDS.toMillis(System.nanoTime()
+								- start)).isLessThan(5000);
+			}
+		}
+	}
+
+	@Test
+	public void finishedRequestsLeaveDeadline() throws Exception {
+		for (TransportType type : HTTP1_TRANSPORTS) {
+			try (Deadline deadline = new Deadline(0)) {
+				deadline.bind();
+				try {
+					for (int i = 0; i < 3; i++) {
+						RequestRunner.getInstance().exchange(type,
+								HttpMethod.GET, url + "/echo", null,
+								String.class, null, null);
+					}
+				} finally {
+					deadline.unbind();
+				}
+				assertThat(deadline.getRequestCount()).as(type.name())
+						.isEqualTo(0);
+			}
+		}
+	}
+
+	@Test
+	public void deadlineAbortsEveryTransport() throws Exception {
+		for (TransportType type : HTTP1_TRANSPORTS) {
+			Sequence sequence = new Sequence();
+			Plugin plugin = new Plugin();
+			plugin.setUrl(url + "/hang");
+			sequence.getPlugins().add(plugin);
+			sequence.getOrder().add(plugin.getId());
+
+			SequenceRunner runner = new SequenceRunner(sequence);
+			runner.setTransportType(type);
+			runner.setDeadlineMillis(200);
+			long start = System.nanoTime();
+			try {
+				runner.runSequence();
+				throw new AssertionError(type + " is not aborted");
+			} catch (RequestException e) {
+				assertThat(
+						TimeUnit.NANOSECONDS.toMillis(System.nanoTime()
+								- start)).isLessThan(5000);
+			}
+		}
+	}
+
+	private static void answerAndClose(Socket socket) {
+		try (Socket closed = socket) {
+			BufferedReader request = new BufferedReader(new InputStreamReader(
+					socket.getInputStream(), "UTF-8"));
+			String line;
+			while ((line = request.readLine()) != null && !line.isEmpty()) {
+			}
+			if (line != null) {
+				OutputStream response = socket.getOutputStream();
+				response.write(("HTTP/1.1 200 OK\r\nContent-Length: 2"
+						+ "\r\nConnection: keep-alive\r\n\r\nok")
+						.getBytes("UTF-8"));
+				response.flush();
+			}
+		} catch (IOException e) {
+			// The client closed the connection
+		}
+	}
+
+	private static TransportType[] supported(TransportType... types) {
+		List<TransportType> supported = new ArrayList<TransportType>();
+		for (TransportType type : types) {
+			if (Transports.isSupported(type)) {
+				supported.add(type);
+			}
+		}
+		return supported.toArray(new TransportType[supported.size()]);
+	}
+
+	private static String read(InputStream input) throws IOException {
+		ByteArrayOutputStream body = new ByteArrayOutputStream();
+		byte[] buffer = new byte[256];
+		int read;
+		while ((read = input.read(buffer)) > 0) {
+			body.write(buffer, 0, read);
+		}
+		return body.toString("UTF-8");
+	}
+}
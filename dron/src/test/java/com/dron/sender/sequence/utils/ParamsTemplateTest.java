@@ -0,0 +1,87 @@
+package com.dron.sender.sequence.utils;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.dron.sender.sequence.models.Param;
+
+public class ParamsTemplateTest {
+
+	@Test
+	public void literal() {
+		ParamsTemplate template = ParamsTemplate.compile("{\"a\":{\"b\":1}}");
+
+		assertThat(template.isLiteral()).isTrue();
+		assertThat(template.render(key -> "x")).isEqualTo("{\"a\":{\"b\":1}}");
+	}
+
+	@Test
+	public void params() {
+		List<Param> params = new ArrayList<Param>();
+		params.add(new Param("{{id}}", "7"));
+		params.add(new Param("{{url}}", "http://localhost/{{id}}"));
+		params.add(new Param("{{id}}", "8"));
+
+		assertThat(
+				ParamsUtils.fillDataParams("{{url}}/items/{{id}}?q={{missing}}",
+						params)).isEqualTo(
+				"http://localhost/7/items/7?q={{missing}}");
+	}
+
+	@Test
+	public void randomValueOfParamIsKept() {
+		List<Param> params = new ArrayList<Param>();
+		params.add(new Param("{{name}}", "{#STRING#}"));
+
+		String first = ParamsUtils.fillDataParams("{{name}}", params);
+
+		assertThat(first).isNotEqualTo("{#STRING#}");
+		assertThat(params.get(0).getValue()).isEqualTo(first);
+		assertThat(ParamsUtils.fillDataParams("{{name}}", params)).isEqualTo(
+				first);
+	}
+
+	@Test
+	public void equalRandomTokensShareValue() {
+		String value = ParamsUtils.fillRandomValue("{#A#}-{#A#}");
+		String[] parts = value.split("-");
+
+		assertThat(parts[0]).isEqualTo(parts[1]);
+		assertThat(value).excludes("{#");
+	}
+
+	@Test
+	public void typedRandomValues() {
+		String value = ParamsUtils
+				.fillRandomValue("{#EMAIL#} {#INT#} {#regex:id-[0-9]{3}#} {#any#}");
+		String[] parts = value.split(" ");
+
+		assertThat(parts[0].matches("[a-zA-Z0-9]{5,10}@[a-zA-Z0-9]{3,8}\\.[a-zA-Z]{3}"))
+				.isTrue();
+		assertThat(parts[1].matches("[0-9]{1,5}")).isTrue();
+		assertThat(parts[2].matches("id-[0-9]{3}")).isTrue();
+		assertThat(parts[3].matches("[a-zA-Z]{5,10}")).isTrue();
+	}
+
+	@Test
+	public void largeBody() {
+		StringBuilder body = new StringBuilder("[");
+		StringBuilder expected = new StringBuilder("[");
+		for (int i = 0; i < 50; i++) {
+			body.append("{\"id\":\"{{p").append(i).append("}}\"},");
+			expected.append("{\"id\":\"v").append(i).append("\"},");
+		}
+		body.append("{}]");
+		expected.append("{}]");
+
+		assertThat(
+				ParamsTemplate.compile(body.toString()).render(
+						key -> "v" + key.substring(3, key.length() - 2)))
+				.isEqualTo(expected.toString());
+	}
+
+}
@@ -0,0 +1,49 @@
+package com.dron.sender.sequence.utils;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.dron.sender.sequence.enums.XegerTypes;
+
+public class RandomValueGeneratorTest {
+
+	private static final String EMAIL_REGEX = "[a-zA-Z0-9]{5,10}[@][a-zA-Z0-9]{3,8}[.][a-zA-Z]{3}";
+
+	@Test
+	public void valuesMatchRegex() {
+		RandomValueGenerator generator = RandomValueGenerator
+				.forRegex(EMAIL_REGEX);
+		for (int i = 0; i < 1000; i++) {
+			assertThat(generator.generate().matches(EMAIL_REGEX)).isTrue();
+		}
+	}
+
+	@Test
+	public void generatorsAreCached() {
+		assertThat(RandomValueGenerator.forRegex("[0-9]{3}")).isSameAs(
+				RandomValueGenerator.forRegex("[0-9]{3}"));
+		assertThat(ParamsUtils.getGenerator(XegerTypes.EMAIL.name()))
+				.isSameAs(ParamsUtils.getGenerator(XegerTypes.EMAIL.name()));
+		assertThat(ParamsUtils.getGenerator(XegerTypes.INT.name()).getRegex())
+				.isEqualTo("[0-9]{1,5}");
+	}
+
+	@Test
+	public void wrongRegexGeneratesString() {
+		assertThat(ParamsUtils.getGenerator("[a-").generate().matches(
+				"[a-zA-Z]{5,10}")).isTrue();
+	}
+
+	@Test
+	public void sameRandomGivesSameValue() {
+		RandomValueGenerator generator = RandomValueGenerator
+				.forRegex(EMAIL_REGEX);
+
+		assertThat(generator.generate(new Random(7))).isEqualTo(
+				generator.generate(new Random(7)));
+	}
+
+}
@@ -0,0 +1,63 @@
+package com.dron.sender.sequence.utils;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+import org.junit.Test;
+
+import com.dron.sender.exceptions.HandlerNotReadyException;
+import com.dron.sender.sequence.models.Param;
+import com.dron.sender.sequence.models.Sequence;
+import com.dron.sender.sequence.models.SequenceDefinition;
+import com.dron.sender.sequence.models.SequenceRun;
+
+public class SeededRandomTest {
+
+	private static final String BODY = "{\"email\":\"{#EMAIL#}\",\"id\":\"{#regex:[0-9]{12}#}\",\"name\":\"{{name}}\"}";
+
+	@Test
+	public void sameIterationGivesSameValues() throws HandlerNotReadyException {
+		assertThat(fill(42, 3, 7)).isEqualTo(fill(42, 3, 7));
+	}
+
+	@Test
+	public void streamsDifferByUserAndIteration()
+			throws HandlerNotReadyException {
+		String value = fill(42, 3, 7);
+
+		assertThat(fill(42, 4, 7)).isNotEqualTo(value);
+		assertThat(fill(42, 3, 8)).isNotEqualTo(value);
+		assertThat(fill(43, 3, 7)).isNotEqualTo(value);
+	}
+
+	@Test
+	public void iterationsOfOneRunAreReproducible()
+			throws HandlerNotReadyException {
+		SequenceRun run = newRun();
+		String[] values = new String[3];
+		for (int iteration = 0; iteration < values.length; iteration++) {
+			run.reset();
+			run.setRandom(SeededRandom.forIteration(42, 3, iteration));
+			values[iteration] = run.fillData(BODY);
+		}
+
+		assertThat(values[1]).isNotEqualTo(values[0]);
+		assertThat(values[2]).isNotEqualTo(values[1]);
+		for (int iteration = 0; iteration < values.length; iteration++) {
+			assertThat(values[iteration]).isEqualTo(fill(42, 3, iteration));
+		}
+	}
+
+	private String fill(long seed, int user, long iteration)
+			throws HandlerNotReadyException {
+		SequenceRun run = newRun();
+		run.setRandom(SeededRandom.forIteration(seed, user, iteration));
+		return run.fillData(BODY);
+	}
+
+	private SequenceRun newRun() throws HandlerNotReadyException {
+		Sequence sequence = new Sequence();
+		sequence.addParam(new Param("{{name}}", "{#STRING#}"));
+		return new SequenceRun(SequenceDefinition.compile(sequence));
+	}
+
+}